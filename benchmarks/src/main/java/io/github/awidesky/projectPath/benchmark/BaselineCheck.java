@@ -0,0 +1,98 @@
+package io.github.awidesky.projectPath.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a JMH result file against an earlier run(the baseline) on the same machine.<p>
+ * Both files must be written with {@code -rf csv}.
+ * A benchmark regresses when its score is worse than the baseline by more than
+ * the threshold(default : 10%). Lower is better for time based modes, higher is better for {@code thrpt}.<p>
+ * 
+ * Usage : {@code java -cp target/benchmarks.jar io.github.awidesky.projectPath.benchmark.BaselineCheck before.csv result.csv [threshold]}
+ * <br>Exits with status 1 if any benchmark regressed.
+ */
+public class BaselineCheck {
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2) {
+			System.err.println("Usage : BaselineCheck <before.csv> <result.csv> [threshold]");
+			System.exit(2);
+		}
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.1;
+		Map<String, Score> baseline = read(Paths.get(args[0]));
+		Map<String, Score> result = read(Paths.get(args[1]));
+
+		int regressed = 0;
+		for(Map.Entry<String, Score> e : result.entrySet()) {
+			Score base = baseline.get(e.getKey());
+			Score now = e.getValue();
+			if(base == null) {
+				System.out.printf("NEW       %s : %.3f %s%n", e.getKey(), now.score, now.unit);
+				continue;
+			}
+			double change = (now.score - base.score) / base.score;
+			boolean worse = "thrpt".equals(now.mode) ? change < -threshold : change > threshold;
+			if(worse) regressed++;
+			System.out.printf("%-9s %s : %.3f -> %.3f %s (%+.1f%%)%n", worse ? "REGRESSED" : "OK",
+					e.getKey(), base.score, now.score, now.unit, change * 100);
+		}
+		System.out.println(regressed + " regression(s)");
+		if(regressed > 0) System.exit(1);
+	}
+
+	private static class Score {
+		final String mode;
+		final double score;
+		final String unit;
+
+		Score(String mode, double score, String unit) {
+			this.mode = mode;
+			this.score = score;
+			this.unit = unit;
+		}
+	}
+
+	/**
+	 * Reads a JMH csv result. The key is the benchmark name followed by its parameters.
+	 */
+	private static Map<String, Score> read(Path csv) throws IOException {
+		List<String> lines = Files.readAllLines(csv);
+		Map<String, Score> ret = new LinkedHashMap<>();
+		if(lines.isEmpty()) return ret;
+		List<String> header = split(lines.get(0));
+		int benchmark = header.indexOf("Benchmark"), mode = header.indexOf("Mode");
+		int score = header.indexOf("Score"), unit = header.indexOf("Unit");
+		for(String line : lines.subList(1, lines.size())) {
+			if(line.isBlank()) continue;
+			List<String> row = split(line);
+			StringBuilder key = new StringBuilder(row.get(benchmark));
+			for(int i = 0; i < header.size(); i++) {
+				if(header.get(i).startsWith("Param: ")) key.append(' ').append(header.get(i).substring(7)).append('=').append(row.get(i));
+			}
+			ret.put(key.toString(), new Score(row.get(mode), Double.parseDouble(row.get(score)), row.get(unit)));
+		}
+		return ret;
+	}
+
+	private static List<String> split(String line) {
+		List<String> ret = new ArrayList<>();
+		StringBuilder sb = new StringBuilder();
+		boolean quoted = false;
+		for(char ch : line.toCharArray()) {
+			if(ch == '"') quoted = !quoted;
+			else if(ch == ',' && !quoted) {
+				ret.add(sb.toString());
+				sb.setLength(0);
+			} else sb.append(ch);
+		}
+		ret.add(sb.toString());
+		return ret;
+	}
+}
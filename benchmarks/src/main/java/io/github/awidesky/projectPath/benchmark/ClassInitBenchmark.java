@@ -0,0 +1,73 @@
+package io.github.awidesky.projectPath.benchmark;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.awidesky.projectPath.OS;
+import io.github.awidesky.projectPath.UserDataPath;
+
+/**
+ * Class initialization cost of {@link OS} and {@link UserDataPath}.<br>
+ * Each invocation loads the classes in a fresh class loader(created outside of the measurement),
+ * so that their static initializers run every time.
+ * {@code load} only loads {@code OS} without initializing it; subtract it from the others.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ClassInitBenchmark {
+
+	private static final URL LOCATION = OS.class.getProtectionDomain().getCodeSource().getLocation();
+
+	private URLClassLoader loader;
+
+	@Setup(Level.Invocation)
+	public void setup() {
+		loader = new URLClassLoader(new URL[] { LOCATION }, ClassLoader.getPlatformClassLoader());
+	}
+
+	@TearDown(Level.Invocation)
+	public void tearDown() throws IOException {
+		loader.close();
+	}
+
+	@Benchmark
+	public Class<?> load() throws ClassNotFoundException {
+		return Class.forName(OS.class.getName(), false, loader);
+	}
+
+	@Benchmark
+	public Class<?> osInit() throws ClassNotFoundException {
+		return Class.forName(OS.class.getName(), true, loader);
+	}
+
+	@Benchmark
+	public Class<?> userDataPathInit() throws ClassNotFoundException {
+		return Class.forName(UserDataPath.class.getName(), true, loader);
+	}
+
+	/** Initialization of both classes, and the first computation of the root of current OS. */
+	@Benchmark
+	public Object firstAppLocalFolder() throws ReflectiveOperationException {
+		return Class.forName(UserDataPath.class.getName(), true, loader).getMethod("appLocalFolder", String[].class)
+				.invoke(null, (Object) new String[0]);
+	}
+}
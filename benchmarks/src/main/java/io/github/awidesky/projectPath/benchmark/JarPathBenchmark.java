@@ -0,0 +1,82 @@
+package io.github.awidesky.projectPath.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.github.awidesky.projectPath.JarPath;
+import io.github.awidesky.projectPath.JarPath.CandidateEntry;
+
+/**
+ * Benchmarks of {@link JarPath}.<br>
+ * "cold" benchmarks clear the cache before each call, so that they measure the full candidate walk.
+ * "warm" benchmarks measure repeated calls of an already resolved path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JarPathBenchmark {
+
+	@Benchmark
+	public String projectPathCold(LayoutState s) {
+		JarPath.clearCache();
+		return JarPath.getProjectPath(s.probeClass);
+	}
+
+	@Benchmark
+	public String projectPathWarm(LayoutState s) {
+		return JarPath.getProjectPath(s.probeClass);
+	}
+
+	@Benchmark
+	public String defaultProjectPathCold() {
+		JarPath.clearCache();
+		return JarPath.getProjectPath();
+	}
+
+	@Benchmark
+	public String defaultProjectPathWarm() {
+		return JarPath.getProjectPath();
+	}
+
+	@Benchmark
+	public String projectPathWithFileCold(LayoutState s) {
+		JarPath.clearCache();
+		return JarPath.getProjectPath(s.probeClass, s.probeFile);
+	}
+
+	@Benchmark
+	public String projectPathWithFileWarm(LayoutState s) {
+		return JarPath.getProjectPath(s.probeClass, s.probeFile);
+	}
+
+	@Benchmark
+	public String jarNameCold(LayoutState s) {
+		JarPath.clearCache();
+		return JarPath.getJarName(s.probeClass);
+	}
+
+	@Benchmark
+	public String jarNameWarm(LayoutState s) {
+		return JarPath.getJarName(s.probeClass);
+	}
+
+	@Benchmark
+	public Object candidates(LayoutState s) {
+		return JarPath.getCandidates(s.probeClass);
+	}
+
+	@Benchmark
+	public void candidatesGeneratePath(LayoutState s, Blackhole bh) {
+		for(CandidateEntry c : JarPath.getCandidates(s.probeClass)) bh.consume(c.generatePath());
+	}
+}
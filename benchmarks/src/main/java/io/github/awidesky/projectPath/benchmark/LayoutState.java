@@ -0,0 +1,125 @@
+package io.github.awidesky.projectPath.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Synthetic deployment layout.<br>
+ * {@link Probe} is copied into a .jar file or an exploded class directory
+ * placed {@code depth} directories under a temporary folder, and loaded from there
+ * by a separate class loader. {@code java.class.path} is padded with
+ * {@code classPathEntries - 1} extra entries to simulate fat class paths.
+ */
+@State(Scope.Benchmark)
+public class LayoutState {
+
+	public static final String JAR_NAME = "probe.jar";
+	public static final String CLASSES_DIR = "classes";
+	/** First package segment of {@link Probe}, which exists in the exploded class directory. */
+	public static final String PACKAGE_DIR = Probe.class.getName().substring(0, Probe.class.getName().indexOf('.'));
+
+	@Param({"jar", "exploded"})
+	public String layout;
+
+	@Param({"0", "32"})
+	public int depth;
+
+	@Param({"1", "1000"})
+	public int classPathEntries;
+
+	/** {@link Probe} loaded from the generated layout. */
+	public Class<?> probeClass;
+	/** The file that exists in the directory JarPath should find. */
+	public String probeFile;
+
+	private Path root;
+	private URLClassLoader loader;
+	private String originalClassPath;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException, ClassNotFoundException {
+		root = Files.createTempDirectory("ProjectPath-bench");
+		Path dir = root;
+		for(int i = 0; i < depth; i++) dir = dir.resolve("d" + i);
+		Files.createDirectories(dir);
+
+		Path location;
+		if("jar".equals(layout)) {
+			location = dir.resolve(JAR_NAME);
+			writeJar(location);
+			probeFile = JAR_NAME;
+		} else {
+			location = dir.resolve(CLASSES_DIR);
+			writeExploded(location);
+			probeFile = PACKAGE_DIR;
+		}
+
+		loader = new URLClassLoader(new URL[] { location.toUri().toURL() }, ClassLoader.getPlatformClassLoader());
+		probeClass = loader.loadClass(Probe.class.getName());
+
+		originalClassPath = System.getProperty("java.class.path");
+		String padding = IntStream.range(1, classPathEntries)
+				.mapToObj(i -> root.resolve("lib").resolve("dependency-" + i + ".jar").toString())
+				.collect(Collectors.joining(java.io.File.pathSeparator));
+		System.setProperty("java.class.path", padding.isEmpty() ? location.toString()
+				: location + java.io.File.pathSeparator + padding);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		System.setProperty("java.class.path", originalClassPath);
+		loader.close();
+		try (Stream<Path> walk = Files.walk(root)) {
+			walk.sorted(Comparator.reverseOrder()).forEach(p -> {
+				try {
+					Files.delete(p);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+	}
+
+	private static String classEntry() {
+		return Probe.class.getName().replace('.', '/') + ".class";
+	}
+
+	private static InputStream classBytes() {
+		return Probe.class.getResourceAsStream(Probe.class.getSimpleName() + ".class");
+	}
+
+	private static void writeJar(Path jar) throws IOException {
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar)); InputStream in = classBytes()) {
+			out.putNextEntry(new JarEntry(classEntry()));
+			in.transferTo(out);
+			out.closeEntry();
+		}
+	}
+
+	private static void writeExploded(Path classes) throws IOException {
+		Path file = classes.resolve(classEntry());
+		Files.createDirectories(file.getParent());
+		try (OutputStream out = Files.newOutputStream(file); InputStream in = classBytes()) {
+			in.transferTo(out);
+		}
+	}
+}
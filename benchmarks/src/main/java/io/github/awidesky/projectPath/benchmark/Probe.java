@@ -0,0 +1,8 @@
+package io.github.awidesky.projectPath.benchmark;
+
+/**
+ * A class with no dependencies, copied into the generated layouts of {@link LayoutState}
+ * and loaded from there by a separate class loader.
+ */
+public class Probe {
+}
@@ -0,0 +1,50 @@
+package io.github.awidesky.projectPath.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.awidesky.projectPath.UserDataPath;
+
+/**
+ * Benchmarks of {@link UserDataPath}, with different number of subfolders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class UserDataPathBenchmark {
+
+	@Param({"0", "2", "8"})
+	public int subFolderCount;
+
+	private String[] subFolders;
+
+	@Setup
+	public void setup() {
+		subFolders = new String[subFolderCount];
+		for(int i = 0; i < subFolderCount; i++) subFolders[i] = "sub" + i;
+	}
+
+	@Benchmark
+	public String appLocalFolder() {
+		return UserDataPath.appLocalFolder(subFolders);
+	}
+
+	@Benchmark
+	public String windowsAppdataRoamingFolder() {
+		return UserDataPath.getWindowsAppdataRoamingFolder(subFolders);
+	}
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Directory tree of an application, declared once and created in a single pass.<p>
+ * Each declared directory is a {@link Directory} handle, whose path is resolved when it's declared.
+ * So later lookups are plain field reads, instead of resolving subfolders again.<br>
+ * {@link AppLayout#provision()} creates missing directories. Each declared directory is checked at most once,
+ * and not at all when its parent is created in the same pass. Independent subtrees are created concurrently.
+ *
+ * <pre>
+ * AppLayout.Builder b = AppLayout.builder("myapp");
+ * AppLayout.Directory config = b.directory(BaseDirectory.CONFIG);
+ * AppLayout.Directory logs = b.directory(BaseDirectory.STATE, "logs");
+ * AppLayout.Directory thumbnails = b.directory(BaseDirectory.CACHE, "thumbnails");
+ * AppLayout.Directory plugins = b.directory(BaseDirectory.DATA, "plugins");
+ * AppLayout.Directory pluginConfig = b.directory(plugins, "config");
+ * b.build().provision();
+ *
+ * Path log = logs.getPath().resolve("app.log");
+ * </pre>
+ */
+public final class AppLayout {
+
+	private final List<Directory> directories;
+	/** Declared directories that have no declared parent. */
+	private final List<Node> roots;
+	private volatile boolean provisioned = false;
+
+	private AppLayout(List<Directory> directories) {
+		this.directories = Collections.unmodifiableList(directories);
+		this.roots = tree(directories);
+	}
+
+	/**
+	 * Returns a new builder. Directories declared with a {@link BaseDirectory} are resolved as
+	 * {@code UserDataPath.directory(kind, appSubFolders..., subFolders...)}.
+	 *
+	 * @param appSubFolders the names of subdirectories of the application, under every base directory
+	 * @return a new builder
+	 */
+	public static Builder builder(String... appSubFolders) {
+		return new Builder(appSubFolders);
+	}
+
+	/** @return unmodifiable list of declared directories, in the order of declaration */
+	public List<Directory> getDirectories() {
+		return directories;
+	}
+
+	/** @return {@code true} if {@link AppLayout#provision()} completed successfully */
+	public boolean isProvisioned() {
+		return provisioned;
+	}
+
+	/**
+	 * Creates every missing directory of the layout, and its missing parents.
+	 * Returns immediately if this layout is provisioned already.
+	 *
+	 * @return number of declared directories that are created
+	 * @throws FileAlreadyExistsException if a declared directory exists as a file
+	 * @throws IOException if an I/O error occurs. Other directories may be created.
+	 */
+	public int provision() throws IOException {
+		if(provisioned) return 0;
+		AtomicInteger created = new AtomicInteger();
+		ConcurrentLinkedQueue<IOException> errors = new ConcurrentLinkedQueue<>();
+		List<ProvisionTask> tasks = new ArrayList<>(roots.size());
+		for(Node n : roots) tasks.add(new ProvisionTask(n, false, created, errors));
+		for(ProvisionTask t : tasks) t.fork();
+		for(ProvisionTask t : tasks) t.join();
+
+		IOException e = null;
+		for(IOException ex : errors) {
+			if(e == null) e = ex;
+			else e.addSuppressed(ex);
+		}
+		if(e != null) throw e;
+		provisioned = true;
+		return created.get();
+	}
+
+	/**
+	 * Runs {@link AppLayout#provision()} on a daemon thread.
+	 *
+	 * @return a future of the number of created directories. Completes exceptionally with {@link UncheckedIOException} if failed.
+	 */
+	public CompletableFuture<Integer> provisionAsync() {
+		return PrefetchExecutor.supply(() -> {
+			try {
+				return provision();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	@Override
+	public String toString() {
+		return "AppLayout " + directories;
+	}
+
+	/**
+	 * Links each directory to the nearest declared parent. Directories declared more than once are merged.
+	 */
+	private static List<Node> tree(List<Directory> directories) {
+		List<Node> nodes = new ArrayList<>();
+		for(Directory d : directories) {
+			if(nodes.stream().noneMatch(n -> n.path.equals(d.path))) nodes.add(new Node(d.path));
+		}
+		nodes.sort(Comparator.comparingInt(n -> n.path.getNameCount()));
+		List<Node> ret = new ArrayList<>();
+		for(int i = 0; i < nodes.size(); i++) {
+			Node n = nodes.get(i);
+			Node parent = null;
+			for(int j = i - 1; j >= 0; j--) {
+				if(n.path.startsWith(nodes.get(j).path)) {
+					parent = nodes.get(j);
+					break;
+				}
+			}
+			(parent == null ? ret : parent.children).add(n);
+		}
+		return ret;
+	}
+
+	/** A directory of the tree. */
+	private static final class Node {
+		private final Path path;
+		private final List<Node> children = new ArrayList<>();
+
+		private Node(Path path) {
+			this.path = path;
+		}
+	}
+
+	/** Creates a directory if needed, and forks its children. */
+	private static final class ProvisionTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final transient Node node;
+		private final boolean parentCreated;
+		private final transient AtomicInteger created;
+		private final transient ConcurrentLinkedQueue<IOException> errors;
+
+		private ProvisionTask(Node node, boolean parentCreated, AtomicInteger created, ConcurrentLinkedQueue<IOException> errors) {
+			this.node = node;
+			this.parentCreated = parentCreated;
+			this.created = created;
+			this.errors = errors;
+		}
+
+		@Override
+		protected void compute() {
+			boolean create = parentCreated;
+			if(!create) {
+				BasicFileAttributes attr = JarPath.readAttributes(node.path);
+				if(attr != null && !attr.isDirectory()) {
+					errors.add(new FileAlreadyExistsException(node.path.toString(), null, "Not a directory"));
+					return;
+				}
+				create = attr == null;
+			}
+			if(create) {
+				try {
+					Files.createDirectories(node.path);
+					created.incrementAndGet();
+				} catch (IOException e) {
+					errors.add(e);
+					return;
+				}
+			}
+			if(node.children.isEmpty()) return;
+			List<ProvisionTask> tasks = new ArrayList<>(node.children.size());
+			for(Node child : node.children) tasks.add(new ProvisionTask(child, create, created, errors));
+			ForkJoinTask.invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * A declared directory. The path is resolved when it's declared, and never changes.
+	 */
+	public static final class Directory {
+		private final BaseDirectory kind;
+		private final Path path;
+
+		private Directory(BaseDirectory kind, Path path) {
+			this.kind = kind;
+			this.path = path;
+		}
+
+		/** @return the kind of base directory this directory is under */
+		public BaseDirectory getKind() {
+			return kind;
+		}
+
+		/** @return absolute path of the directory */
+		public Path getPath() {
+			return path;
+		}
+
+		/**
+		 * @param other name of a file in this directory
+		 * @return {@code getPath().resolve(other)}
+		 */
+		public Path resolve(String other) {
+			return path.resolve(other);
+		}
+
+		@Override
+		public String toString() {
+			return kind + ":" + path;
+		}
+	}
+
+	/** Builder of {@link AppLayout}. Declaring methods return the handle of the directory, not the builder. */
+	public static final class Builder {
+		private final String[] appSubFolders;
+		private final List<Directory> directories = new ArrayList<>();
+
+		private Builder(String... appSubFolders) {
+			this.appSubFolders = appSubFolders.clone();
+		}
+
+		/**
+		 * Declares {@code UserDataPath.directory(kind, appSubFolders..., subFolders...)}.
+		 *
+		 * @param kind kind of the base directory
+		 * @param subFolders the names of subdirectories under the application folder
+		 * @return handle of the directory
+		 * @throws NullPointerException if the base directory of current user is unknown
+		 */
+		public Directory directory(BaseDirectory kind, String... subFolders) {
+			String[] names = new String[appSubFolders.length + subFolders.length];
+			System.arraycopy(appSubFolders, 0, names, 0, appSubFolders.length);
+			System.arraycopy(subFolders, 0, names, appSubFolders.length, subFolders.length);
+			return add(new Directory(kind, UserDataPath.directory(kind, names)));
+		}
+
+		/**
+		 * Declares a subdirectory of a declared directory. Absolute names are joined under {@code parent}, like {@code Paths.get(parent, subFolders)}.
+		 *
+		 * @param parent a directory declared with this builder
+		 * @param subFolders the names of subdirectories under {@code parent}
+		 * @return handle of the directory
+		 */
+		public Directory directory(Directory parent, String... subFolders) {
+			Path p = Objects.requireNonNull(parent).path;
+			for(String s : subFolders) p = UserDataPath.join(p, s);
+			return add(new Directory(parent.kind, p));
+		}
+
+		private Directory add(Directory d) {
+			directories.add(d);
+			return d;
+		}
+
+		/** @return a new {@code AppLayout} of the directories declared so far */
+		public AppLayout build() {
+			return new AppLayout(new ArrayList<>(directories));
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.io.File;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Location of a class, parsed from its {@code CodeSource} URL : the file on the file system,
+ * and the archive entries nested in it, if any.<p>
+ * Nested archives(fat jars, boot jars) are parsed without extracting anything. Supported forms are :
+ * <ul>
+ * <li>{@code file:/path/app.jar}, {@code file:/path/classes/}</li>
+ * <li>{@code jar:file:/path/app.jar!/}</li>
+ * <li>{@code jar:file:/path/app.jar!/BOOT-INF/lib/x.jar!/} (Spring Boot 2 and older)</li>
+ * <li>{@code jar:nested:/path/app.jar/!BOOT-INF/lib/x.jar!/}, {@code nested:/path/app.jar/!BOOT-INF/classes/} (Spring Boot 3.2 and newer)</li>
+ * <li>{@code rsrc:./}, {@code jar:rsrc:x.jar!/} (Eclipse "Runnable JAR" jar-in-jar loader). The outer .jar file is the launched one,
+ * which is the .jar entry of {@code java.class.path}.</li>
+ * <li>{@code jrt:/module.name} (a module linked into the runtime image, e.g. one made by {@code jlink}).
+ * The file is the runtime image({@code java.home}), which is not an archive.</li>
+ * </ul>
+ *
+ * @see JarPath#getArchiveLocation(Class)
+ */
+public final class ArchiveLocation {
+
+	private final String url;
+	private final Path file;
+	private final List<String> entries;
+
+	private ArchiveLocation(String url, Path file, List<String> entries) {
+		this.url = url;
+		this.file = file;
+		this.entries = entries;
+	}
+
+	/**
+	 * Parses given location URL.
+	 *
+	 * @param url external form of a {@code CodeSource} location
+	 * @return parsed location, or {@code null} if the URL is not a supported form
+	 */
+	public static ArchiveLocation of(String url) {
+		if(url == null) return null;
+		String s = url;
+		while(s.startsWith("jar:")) s = s.substring(4);
+
+		Path file;
+		List<String> entries = new ArrayList<>();
+		if(s.startsWith("nested:")) {
+			/* nested:(path of outer jar)/!(entry)[!/(entry)...] */
+			int sep = s.indexOf("/!");
+			if(sep < 0) return null;
+			file = toPath("file:" + s.substring("nested:".length(), sep));
+			addEntries(entries, s.substring(sep + 2));
+		} else if(s.startsWith("jrt:")) {
+			file = Paths.get(System.getProperty("java.home")).toAbsolutePath();
+		} else if(s.startsWith("rsrc:")) {
+			file = launchedJar();
+			addEntries(entries, s.substring("rsrc:".length()));
+			if(!entries.isEmpty() && (entries.get(0).equals(".") || entries.get(0).equals("./"))) entries.remove(0);
+		} else {
+			int sep = s.indexOf("!/");
+			file = toPath(sep < 0 ? s : s.substring(0, sep));
+			if(sep >= 0) addEntries(entries, s.substring(sep + 2));
+		}
+		if(file == null) return null;
+		return new ArchiveLocation(url, file, Collections.unmodifiableList(entries));
+	}
+
+	/**
+	 * Returns the same location in another file, e.g. after the .jar file is renamed.
+	 * The nested entries are kept, and the URL is made from the new file.
+	 *
+	 * @param file the new file
+	 * @return the moved location
+	 */
+	ArchiveLocation relocate(Path file) {
+		StringBuilder url = new StringBuilder(file.toUri().toString());
+		if(isNested()) {
+			url.insert(0, "jar:").append("!/");
+			for(String entry : entries) url.append(entry).append("!/");
+		}
+		return new ArchiveLocation(url.toString(), file, entries);
+	}
+
+	/** @return the URL this location is parsed from */
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * Returns the file on the file system : the .jar file(the outermost one, if nested), or the class directory.
+	 * @return absolute path of the file
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the directory of the outermost .jar file, or the class directory itself if it's not in an archive.
+	 * @return the directory
+	 */
+	public Path getDirectory() {
+		return isArchive() && file.getParent() != null ? file.getParent() : file;
+	}
+
+	/**
+	 * Returns names of nested entries, from the outermost one.
+	 * For example, {@code [BOOT-INF/lib/x.jar]} for {@code jar:file:/path/app.jar!/BOOT-INF/lib/x.jar!/}.
+	 * @return unmodifiable list of entry names. Empty if not nested.
+	 */
+	public List<String> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Returns the innermost entry.
+	 * @return name of the innermost entry, or {@code null} if not nested
+	 */
+	public String getInnerEntry() {
+		return entries.isEmpty() ? null : entries.get(entries.size() - 1);
+	}
+
+	/**
+	 * Returns {@code true} if the location is a module of the runtime image({@code jrt:/module.name}).
+	 * Then {@link ArchiveLocation#getFile()} is the root of the runtime image.
+	 * @return {@code true} if the location is in the runtime image
+	 */
+	public boolean isRuntimeImage() {
+		return url.startsWith("jrt:");
+	}
+
+	/** @return {@code true} if the location is inside of an archive nested in {@link ArchiveLocation#getFile()} */
+	public boolean isNested() {
+		return !entries.isEmpty();
+	}
+
+	/**
+	 * Returns {@code true} if {@link ArchiveLocation#getFile()} is an archive.
+	 * Judged by the URL and the file name only, without accessing the file system.
+	 * @return {@code true} if the file is an archive
+	 */
+	public boolean isArchive() {
+		if(isNested()) return true;
+		String name = file.getFileName() == null ? "" : file.getFileName().toString();
+		return name.endsWith(".jar") || name.endsWith(".war") || name.endsWith(".zip");
+	}
+
+	@Override
+	public String toString() {
+		return "ArchiveLocation [file=" + file + ", entries=" + entries + "]";
+	}
+
+	/**
+	 * Adds entries separated with {@code !/}. Trailing separators and empty names are ignored.
+	 */
+	private static void addEntries(List<String> entries, String s) {
+		for(String entry : s.split("!/")) {
+			if(entry.endsWith("!")) entry = entry.substring(0, entry.length() - 1);
+			if(entry.endsWith("/")) entry = entry.substring(0, entry.length() - 1);
+			if(!entry.isEmpty()) entries.add(LocationDecoder.decode(entry));
+		}
+	}
+
+	private static Path toPath(String fileUrl) {
+		return LocationDecoder.toPath(fileUrl);
+	}
+
+	/**
+	 * The .jar file launched with {@code java -jar}, which is the only entry of {@code java.class.path}.<br>
+	 * The property is split directly, so that {@link ClassPathIndex} is not built just to find it.
+	 */
+	private static Path launchedJar() {
+		for(String s : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+			if(!s.endsWith(".jar")) continue;
+			try {
+				return Paths.get(s).toAbsolutePath();
+			} catch (InvalidPathException e) {
+				if(JarPath.isDebug()) e.printStackTrace();
+			}
+		}
+		return null;
+	}
+}
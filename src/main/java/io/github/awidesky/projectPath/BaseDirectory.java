@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+/**
+ * Kinds of user specific base directories, following the
+ * <a href="https://specifications.freedesktop.org/basedir-spec/latest/">XDG Base Directory Specification</a>
+ * in Linux, and the nearest equivalent in other OS.<p>
+ * In Linux, the environment variable of each kind is used if it's set to an absolute path.
+ * Relative paths are ignored, as the specification requires.
+ *
+ * @see UserDataPath#directory(BaseDirectory, String...)
+ * @see OS#root(BaseDirectory)
+ */
+public enum BaseDirectory {
+	/**
+	 * Durable user data. Same as {@link UserDataPath#appLocalDirectory(String...)}.
+	 * <ul>
+	 * <li>In MacOS : {@code ~/Library/Application Support}</li>
+	 * <li>In Windows : {@code %LOCALAPPDATA%}</li>
+	 * <li>In Linux : {@code $XDG_DATA_HOME}, or {@code ~/.local/share}</li>
+	 * </ul>
+	 */
+	DATA,
+	/**
+	 * User configuration.
+	 * <ul>
+	 * <li>In MacOS : {@code ~/Library/Application Support}</li>
+	 * <li>In Windows : {@code %APPDATA%}(roaming)</li>
+	 * <li>In Linux : {@code $XDG_CONFIG_HOME}, or {@code ~/.config}</li>
+	 * </ul>
+	 */
+	CONFIG,
+	/**
+	 * Non-essential data that can be deleted anytime. Usually excluded from backups.
+	 * <ul>
+	 * <li>In MacOS : {@code ~/Library/Caches}</li>
+	 * <li>In Windows : {@code %LOCALAPPDATA%}</li>
+	 * <li>In Linux : {@code $XDG_CACHE_HOME}, or {@code ~/.cache}</li>
+	 * </ul>
+	 */
+	CACHE,
+	/**
+	 * Data that should persist between restarts, but is not important enough to be in {@link BaseDirectory#DATA}(e.g. logs, history).
+	 * <ul>
+	 * <li>In MacOS : {@code ~/Library/Application Support}</li>
+	 * <li>In Windows : {@code %LOCALAPPDATA%}</li>
+	 * <li>In Linux : {@code $XDG_STATE_HOME}, or {@code ~/.local/state}</li>
+	 * </ul>
+	 */
+	STATE,
+	/**
+	 * Runtime files(e.g. sockets, scratch files) that live only while the user is logged in.
+	 * In Linux, {@code $XDG_RUNTIME_DIR} is usually a tmpfs only accessible by the user.<br>
+	 * If it's not set, and in other OS, {@code java.io.tmpdir} is used. It may be shared with other users,
+	 * so create files in it with restrictive permissions.
+	 * <ul>
+	 * <li>In MacOS : {@code java.io.tmpdir}(a per-user folder by default)</li>
+	 * <li>In Windows : {@code java.io.tmpdir}(usually {@code %LOCALAPPDATA%\Temp})</li>
+	 * <li>In Linux : {@code $XDG_RUNTIME_DIR}, or {@code java.io.tmpdir}</li>
+	 * </ul>
+	 */
+	RUNTIME
+}
@@ -0,0 +1,517 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongSupplier;
+
+/**
+ * A cache directory with a byte budget. Entries that exceed the budget are evicted, least recently used(or oldest) first.<p>
+ * An entry is a file or a directory directly under the cache directory, identified by its name.
+ * Write an entry at {@link CacheDirectory#resolve(String)}, and {@link CacheDirectory#commit(String)} it,
+ * so that its size is measured and recorded. {@link CacheDirectory#get(String)} records the access.<p>
+ *
+ * Sizes and access times are kept in a compact index file in the directory, so that checking the usage never rescans the directory.
+ * The index is updated under a file lock, so several processes can share a cache directory.
+ * Accesses are recorded in memory, and written with the next update of the index or {@link CacheDirectory#flush()}.<p>
+ *
+ * File names starting with {@code .} are reserved.
+ *
+ * <pre>
+ * try (CacheDirectory cache = CacheDirectory.of(512L * 1024 * 1024, "myapp", "thumbnails")) {
+ *     Path p = cache.get(key);
+ *     if(p == null) {
+ *         render(cache.resolve(key));
+ *         cache.commit(key);
+ *     }
+ * }
+ * </pre>
+ */
+public final class CacheDirectory implements Closeable {
+
+	/** Name of the index file. */
+	public static final String INDEX_FILE = ".index";
+	/** Name of the file that is locked while the index is updated. */
+	public static final String LOCK_FILE = ".lock";
+
+	/** {@code "PPC1"} */
+	private static final int MAGIC = 0x50504331;
+	/** Threads of this JVM must not lock the same file concurrently, so they synchronize on a monitor per directory. */
+	private static final ConcurrentHashMap<Path, Object> monitors = new ConcurrentHashMap<>();
+
+	/** Order of eviction. */
+	public enum Eviction {
+		/** Least recently accessed(or committed) entry first. */
+		LRU,
+		/** Least recently committed entry first, regardless of accesses. */
+		AGE
+	}
+
+	private final Path directory;
+	private final long maxBytes;
+	private final long maxAge;
+	private final Eviction eviction;
+	private final LongSupplier clock;
+	private final Object monitor;
+	/** Accesses that are not written to the index yet. */
+	private final ConcurrentHashMap<String, Long> accessed = new ConcurrentHashMap<>();
+	/** Total size of the entries when the index was last read or written, {@code -1} if never. */
+	private volatile long usage = -1;
+
+	private CacheDirectory(Builder b) {
+		this.directory = b.directory;
+		this.maxBytes = b.maxBytes;
+		this.maxAge = b.maxAge == null ? Long.MAX_VALUE : b.maxAge.toMillis();
+		this.eviction = b.eviction;
+		this.clock = b.clock;
+		this.monitor = monitors.computeIfAbsent(directory, k -> new Object());
+	}
+
+	/**
+	 * Creates a LRU cache in {@code UserDataPath.cacheDirectory(appSubFolders...)}.
+	 *
+	 * @param maxBytes the byte budget
+	 * @param appSubFolders the names of subdirectories under the cache folder of the user
+	 * @return a new cache
+	 */
+	public static CacheDirectory of(long maxBytes, String... appSubFolders) {
+		return builder(UserDataPath.cacheDirectory(appSubFolders)).maxBytes(maxBytes).build();
+	}
+
+	/**
+	 * @param directory the cache directory. Created when the index is first written.
+	 * @return a new builder
+	 */
+	public static Builder builder(Path directory) {
+		return new Builder(directory);
+	}
+
+	/** @return the cache directory */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/** @return the byte budget */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Returns the path of given entry, whether it exists or not. Write the entry there, and {@link CacheDirectory#commit(String)} it.
+	 *
+	 * @param key name of the entry
+	 * @return path of the entry
+	 * @throws IllegalArgumentException if the key is not a valid file name, or is reserved
+	 */
+	public Path resolve(String key) {
+		Objects.requireNonNull(key);
+		if(key.isEmpty() || key.startsWith(".") || key.indexOf('/') != -1 || key.indexOf('\\') != -1)
+			throw new IllegalArgumentException("Invalid cache key : " + key);
+		return directory.resolve(key);
+	}
+
+	/**
+	 * Returns the path of given entry if it exists, and records the access.
+	 *
+	 * @param key name of the entry
+	 * @return path of the entry, or {@code null} if not exists
+	 */
+	public Path get(String key) {
+		Path ret = resolve(key);
+		if(JarPath.readAttributes(ret) == null) return null;
+		accessed.put(key, clock.getAsLong());
+		return ret;
+	}
+
+	/**
+	 * Measures the size of given entry, records it in the index, and evicts other entries until the usage is within the budget.
+	 * Call it again after the entry is changed.
+	 *
+	 * @param key name of the entry
+	 * @return size of the entry in bytes
+	 * @throws NoSuchFileException if the entry does not exist
+	 * @throws IOException if an I/O error occurs
+	 */
+	public long commit(String key) throws IOException {
+		Path p = resolve(key);
+		if(JarPath.readAttributes(p) == null) throw new NoSuchFileException(p.toString());
+		long size = sizeOf(p);
+		return locked(index -> {
+			long now = clock.getAsLong();
+			Entry e = index.get(key);
+			index.put(key, new Entry(size, e == null ? now : e.created, now));
+			evict(index, key);
+			return size;
+		});
+	}
+
+	/**
+	 * Deletes given entry.
+	 *
+	 * @param key name of the entry
+	 * @return {@code true} if the entry existed
+	 * @throws IOException if an I/O error occurs
+	 */
+	public boolean remove(String key) throws IOException {
+		Path p = resolve(key);
+		return locked(index -> {
+			accessed.remove(key);
+			index.remove(key);
+			boolean ret = JarPath.readAttributes(p) != null;
+			deleteTree(p);
+			return ret;
+		});
+	}
+
+	/**
+	 * Returns the total size of the entries recorded in the index. The index is read only if it's never read by this instance.
+	 *
+	 * @return the usage in bytes
+	 * @throws IOException if an I/O error occurs
+	 */
+	public long getUsage() throws IOException {
+		long ret = usage;
+		return ret >= 0 ? ret : locked(index -> usage(index));
+	}
+
+	/**
+	 * Evicts entries until the usage is within the budget, and entries older than the max age.
+	 *
+	 * @return the usage in bytes
+	 * @throws IOException if an I/O error occurs
+	 */
+	public long trim() throws IOException {
+		return locked(index -> {
+			evict(index, null);
+			return usage(index);
+		});
+	}
+
+	/**
+	 * Measures every entry again with a parallel walk, and rebuilds the index.
+	 * Needed only if entries are changed without {@link CacheDirectory#commit(String)}.
+	 * Access times of known entries are kept, and new entries use their last modified time.
+	 *
+	 * @return the usage in bytes
+	 * @throws IOException if an I/O error occurs
+	 */
+	public long rebuild() throws IOException {
+		return locked(index -> {
+			Map<String, Entry> scanned = scan();
+			scanned.replaceAll((k, v) -> {
+				Entry old = index.get(k);
+				return old == null ? v : new Entry(v.size, old.created, old.accessed);
+			});
+			index.clear();
+			index.putAll(scanned);
+			evict(index, null);
+			return usage(index);
+		});
+	}
+
+	/**
+	 * Writes recorded accesses to the index.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void flush() throws IOException {
+		if(!accessed.isEmpty()) locked(index -> null);
+	}
+
+	/**
+	 * Same as {@link CacheDirectory#flush()}. Entries are kept.
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+	}
+
+	private interface IndexAction<T> {
+		T apply(Map<String, Entry> index) throws IOException;
+	}
+
+	/** Reads the index under the lock, applies recorded accesses and given action, and writes it back. */
+	private <T> T locked(IndexAction<T> action) throws IOException {
+		synchronized (monitor) {
+			Files.createDirectories(directory);
+			try (FileChannel ch = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+				ch.lock(); // released when the channel is closed
+				Map<String, Entry> index = readIndex();
+				for(Map.Entry<String, Long> a : accessed.entrySet()) {
+					Entry e = index.get(a.getKey());
+					if(e != null && e.accessed < a.getValue()) index.put(a.getKey(), new Entry(e.size, e.created, a.getValue()));
+					accessed.remove(a.getKey(), a.getValue());
+				}
+				T ret = action.apply(index);
+				writeIndex(index);
+				usage = usage(index);
+				return ret;
+			}
+		}
+	}
+
+	/** Evicts entries older than max age, and then least recent entries until the usage is within the budget. {@code keep} is never evicted. */
+	private void evict(Map<String, Entry> index, String keep) {
+		long now = clock.getAsLong();
+		List<String> keys = new ArrayList<>(index.keySet());
+		keys.sort((a, b) -> Long.compare(time(index.get(a)), time(index.get(b))));
+		long total = usage(index);
+		for(String key : keys) {
+			if(key.equals(keep)) continue;
+			Entry e = index.get(key);
+			if(total <= maxBytes && now - time(e) <= maxAge) continue;
+			try {
+				deleteTree(directory.resolve(key));
+				index.remove(key);
+				total -= e.size;
+				if(JarPath.isDebug()) System.out.println("[JarPath|debug] Evicted cache entry " + key + " (" + e.size + " bytes) from " + directory);
+			} catch (IOException ex) {
+				if(JarPath.isDebug()) ex.printStackTrace();
+			}
+		}
+	}
+
+	private long time(Entry e) {
+		return eviction == Eviction.LRU ? e.accessed : e.created;
+	}
+
+	private static long usage(Map<String, Entry> index) {
+		long ret = 0L;
+		for(Entry e : index.values()) ret += e.size;
+		return ret;
+	}
+
+	/** Reads the index. If it does not exist or is corrupted, the directory is scanned. */
+	private Map<String, Entry> readIndex() throws IOException {
+		Path file = directory.resolve(INDEX_FILE);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if(in.readInt() != MAGIC) throw new IOException("Invalid cache index : " + file);
+			int n = in.readInt();
+			Map<String, Entry> ret = new HashMap<>(Math.max(16, n * 2));
+			for(int i = 0; i < n; i++) ret.put(in.readUTF(), new Entry(in.readLong(), in.readLong(), in.readLong()));
+			return ret;
+		} catch (NoSuchFileException e) {
+			return scan();
+		} catch (IOException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+			return scan();
+		}
+	}
+
+	/** Writes the index to a temporary file, and moves it. */
+	private void writeIndex(Map<String, Entry> index) throws IOException {
+		Path file = directory.resolve(INDEX_FILE);
+		Path tmp = directory.resolve(INDEX_FILE + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(index.size());
+			for(Map.Entry<String, Entry> e : index.entrySet()) {
+				out.writeUTF(e.getKey());
+				out.writeLong(e.getValue().size);
+				out.writeLong(e.getValue().created);
+				out.writeLong(e.getValue().accessed);
+			}
+		}
+		try {
+			Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/** Measures every entry in the directory concurrently. */
+	private Map<String, Entry> scan() throws IOException {
+		Map<String, Entry> ret = new HashMap<>();
+		if(JarPath.readAttributes(directory) == null) return ret;
+		List<String> keys = new ArrayList<>();
+		List<ForkJoinTask<Long>> tasks = new ArrayList<>();
+		List<Long> times = new ArrayList<>();
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(directory)) {
+			for(Path p : ds) {
+				String name = p.getFileName().toString();
+				if(name.startsWith(".")) continue;
+				BasicFileAttributes attr = JarPath.readAttributes(p);
+				if(attr == null) continue;
+				keys.add(name);
+				times.add(attr.lastModifiedTime().toMillis());
+				tasks.add(new SizeTask(p).fork());
+			}
+		}
+		for(int i = 0; i < keys.size(); i++) {
+			long t = times.get(i);
+			ret.put(keys.get(i), new Entry(tasks.get(i).join(), t, t));
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the size of a file, or the total size of files in a directory, with a parallel walk in the common {@code ForkJoinPool}.
+	 * Symbolic links are not followed.
+	 *
+	 * @param p a file or a directory
+	 * @return size in bytes
+	 */
+	static long sizeOf(Path p) {
+		return ForkJoinPool.commonPool().invoke(new SizeTask(p));
+	}
+
+	/** Size of a file, or a directory. Subdirectories are forked. */
+	private static final class SizeTask extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+		private final transient Path path;
+
+		private SizeTask(Path path) {
+			this.path = path;
+		}
+
+		@Override
+		protected Long compute() {
+			BasicFileAttributes attr = attributes(path);
+			if(attr == null) return 0L;
+			if(!attr.isDirectory()) return attr.size();
+			long ret = 0L;
+			List<SizeTask> subTasks = new ArrayList<>();
+			try (DirectoryStream<Path> ds = Files.newDirectoryStream(path)) {
+				for(Path child : ds) {
+					BasicFileAttributes a = attributes(child);
+					if(a == null) continue;
+					if(a.isDirectory()) {
+						SizeTask t = new SizeTask(child);
+						t.fork();
+						subTasks.add(t);
+					} else {
+						ret += a.size();
+					}
+				}
+			} catch (IOException e) {
+				if(JarPath.isDebug()) e.printStackTrace();
+			}
+			for(SizeTask t : subTasks) ret += t.join();
+			return ret;
+		}
+	}
+
+	private static BasicFileAttributes attributes(Path p) {
+		try {
+			return Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/** Deletes a file, or a directory with its contents. Symbolic links are deleted, not followed. */
+	private static void deleteTree(Path p) throws IOException {
+		BasicFileAttributes attr = attributes(p);
+		if(attr == null) return;
+		if(attr.isDirectory()) {
+			try (DirectoryStream<Path> ds = Files.newDirectoryStream(p)) {
+				for(Path child : ds) deleteTree(child);
+			}
+		}
+		Files.deleteIfExists(p);
+	}
+
+	/** A record of the index. Immutable. */
+	private static final class Entry {
+		private final long size;
+		private final long created;
+		private final long accessed;
+
+		private Entry(long size, long created, long accessed) {
+			this.size = size;
+			this.created = created;
+			this.accessed = accessed;
+		}
+	}
+
+	/** Builder of {@link CacheDirectory}. */
+	public static final class Builder {
+		private final Path directory;
+		private long maxBytes = Long.MAX_VALUE;
+		private Duration maxAge = null;
+		private Eviction eviction = Eviction.LRU;
+		private LongSupplier clock = System::currentTimeMillis;
+
+		private Builder(Path directory) {
+			this.directory = directory.toAbsolutePath().normalize();
+		}
+
+		/**
+		 * Sets the byte budget. Default is unlimited.
+		 *
+		 * @param maxBytes the byte budget
+		 * @return this builder
+		 */
+		public Builder maxBytes(long maxBytes) {
+			if(maxBytes < 0) throw new IllegalArgumentException("Negative budget : " + maxBytes);
+			this.maxBytes = maxBytes;
+			return this;
+		}
+
+		/**
+		 * Sets the max age. Entries not accessed(or not committed, if {@link Eviction#AGE}) for longer than it are evicted.
+		 * Default is unlimited.
+		 *
+		 * @param maxAge the max age, or {@code null} for unlimited
+		 * @return this builder
+		 */
+		public Builder maxAge(Duration maxAge) {
+			this.maxAge = maxAge;
+			return this;
+		}
+
+		/**
+		 * Sets the order of eviction. Default is {@link Eviction#LRU}.
+		 *
+		 * @param eviction the order of eviction
+		 * @return this builder
+		 */
+		public Builder eviction(Eviction eviction) {
+			this.eviction = Objects.requireNonNull(eviction);
+			return this;
+		}
+
+		/** Source of the time in milliseconds. For tests. */
+		Builder clock(LongSupplier clock) {
+			this.clock = clock;
+			return this;
+		}
+
+		/** @return a new {@code CacheDirectory} */
+		public CacheDirectory build() {
+			return new CacheDirectory(this);
+		}
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event of a single {@link JarPath.CandidateEntry} evaluation.<p>
+ * The duration covers generating the path, finding its nearest directory,
+ * and checking if the probe file exists in it.
+ * Enable {@code io.github.awidesky.projectPath.CandidateEvaluation} in the recording settings to see why candidates fail.
+ */
+@Name("io.github.awidesky.projectPath.CandidateEvaluation")
+@Label("Candidate Evaluation")
+@Category({"ProjectPath", "JarPath"})
+@Description("Evaluation of a single project path candidate")
+public final class CandidateEvaluationEvent extends Event {
+
+	@Label("Description")
+	String description;
+
+	@Label("Path")
+	@Description("Generated directory, or null if the candidate failed")
+	String path;
+
+	@Label("Matched")
+	@Description("Whether the directory exists and contains the probe file")
+	boolean matched;
+
+	@Label("Failure")
+	@Description("Why the candidate failed to generate a path")
+	String failure;
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.util.Objects;
+
+/**
+ * Provides an additional candidate of the project path, e.g. a path given by the launcher of a specific deployment.<p>
+ * Implementations are discovered with {@link java.util.ServiceLoader} : list the implementation class in
+ * {@code META-INF/services/io.github.awidesky.projectPath.CandidateProvider}, or add it to
+ * {@link JarPathResolver.Builder#addProvider(CandidateProvider)}.<p>
+ *
+ * Candidates are ordered by {@link CandidateProvider#getPriority()}, and the matching candidate with the lowest priority value wins.
+ * Priorities of built-in candidates are :
+ * <ul>
+ * <li>{@code 0} : {@code app} directory of the jpackage image({@link JPackageImage#current()})</li>
+ * <li>{@code 100 ~ 199} : the first approach("working directory", or "class file path" if {@link JarPath#isClassPathSearchFirst()})</li>
+ * <li>{@code 200 ~ 299} : the other approach</li>
+ * <li>{@code 300}({@link JarPath.CandidateEntry#DEFAULT_PRIORITY}) : candidates made with the public constructor of {@link JarPath.CandidateEntry}</li>
+ * </ul>
+ * {@link CandidateProvider#getCost()} does not change the result. It only changes the order of evaluation
+ * among candidates of the same priority band(the same hundreds, e.g. {@code 100 ~ 199}) : within a band, cheap candidates
+ * are evaluated first. Bands are always evaluated in order, and the resolution stops as soon as a matching candidate
+ * has no unevaluated candidate of lower priority value.
+ */
+public interface CandidateProvider {
+
+	/**
+	 * Expected cost of generating a candidate path, from cheapest.
+	 * It does not include checking the generated path, which every candidate does on the file system.
+	 */
+	enum Cost {
+		/** Reads in-memory values only(e.g. system properties, environment variables, the {@code CodeSource} of a class). */
+		MEMORY,
+		/** Accesses the file system. */
+		FILESYSTEM,
+		/** Looks up the class or its resources through a class loader. */
+		CLASSLOADER
+	}
+
+	/**
+	 * Returns the name of the candidate. Used as the description and the name in {@link JarPathMetrics}.
+	 * @return the name of the candidate
+	 */
+	String getName();
+
+	/**
+	 * Returns the priority. The matching candidate with the lowest value is the result.
+	 * @return the priority
+	 */
+	int getPriority();
+
+	/**
+	 * Returns the expected cost of {@link CandidateProvider#getPath(Class)}. Default is {@link Cost#FILESYSTEM}.
+	 * @return the expected cost
+	 */
+	default Cost getCost() {
+		return Cost.FILESYSTEM;
+	}
+
+	/**
+	 * Generates a candidate path. It does not need to exist; the resolver checks it.
+	 *
+	 * @param c the class whose project path is being resolved
+	 * @return a candidate path(a directory, or a file in it), or {@code null} if not available
+	 */
+	String getPath(Class<?> c);
+
+	/**
+	 * Returns a provider that reads an environment variable(e.g. one set by the launcher script).
+	 *
+	 * @param name name of the environment variable
+	 * @param priority the priority
+	 * @return a new provider
+	 */
+	static CandidateProvider ofEnvironment(String name, int priority) {
+		Objects.requireNonNull(name);
+		return new CandidateProvider() {
+			@Override
+			public String getName() {
+				return "Environment variable " + name;
+			}
+
+			@Override
+			public int getPriority() {
+				return priority;
+			}
+
+			@Override
+			public Cost getCost() {
+				return Cost.MEMORY;
+			}
+
+			@Override
+			public String getPath(Class<?> c) {
+				return System.getenv(name);
+			}
+		};
+	}
+
+	/**
+	 * Returns a provider that reads a system property(e.g. one passed with {@code -D} by the launcher).
+	 *
+	 * @param key key of the system property
+	 * @param priority the priority
+	 * @return a new provider
+	 */
+	static CandidateProvider ofSystemProperty(String key, int priority) {
+		Objects.requireNonNull(key);
+		return new CandidateProvider() {
+			@Override
+			public String getName() {
+				return "System property " + key;
+			}
+
+			@Override
+			public int getPriority() {
+				return priority;
+			}
+
+			@Override
+			public Cost getCost() {
+				return Cost.MEMORY;
+			}
+
+			@Override
+			public String getPath(Class<?> c) {
+				return System.getProperty(key);
+			}
+		};
+	}
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.ZipException;
+
+/**
+ * Index of every entry of a class path(normally, system property {@code java.class.path}).<p>
+ * Each entry is parsed once. Central directories of .jar entries are read concurrently
+ * with positional reads into heap buffers(without inflating anything), and every class and package is mapped
+ * to the first entry that contains it. The .jar files are not memory-mapped : a mapping is released only when
+ * it's garbage collected, and on Windows it keeps the file locked, so the .jar files could not be replaced on a redeploy. Directory entries are not walked; they are checked
+ * with a single file access when a lookup needs them.<p>
+ *
+ * Once built, an index does not change. {@link ClassPathIndex#getDefault()} rebuilds it
+ * when {@code java.class.path} is changed, or when an entry could not be read last time.
+ */
+public class ClassPathIndex {
+
+	/** Index of {@code java.class.path}, or {@code null} until it's first needed. Checked in tests. */
+	static volatile ClassPathIndex defaultIndex = null;
+
+	private final String classPath;
+	private final List<Path> entries;
+	/** Indexes of directory entries, in class path order. */
+	private final int[] directories;
+	/** ".class" resource name(e.g. {@code java/lang/String.class}) to the index of first jar entry that contains it. */
+	private final Map<String, Integer> classes;
+	/** Package name(e.g. {@code java.lang}) to the index of first jar entry that contains it. */
+	private final Map<String, Integer> packages;
+	/** {@code false} if an entry could not be read for a reason that may not happen again(e.g. an I/O error or an interrupt). */
+	private final boolean complete;
+
+	private ClassPathIndex(String classPath, List<Path> entries, int[] directories, Map<String, Integer> classes, Map<String, Integer> packages, boolean complete) {
+		this.classPath = classPath;
+		this.entries = entries;
+		this.directories = directories;
+		this.classes = classes;
+		this.packages = packages;
+		this.complete = complete;
+	}
+
+	/**
+	 * Returns the index of system property {@code java.class.path}.<br>
+	 * The index is built at the first call, and rebuilt only when the property is changed.
+	 * If an entry could not be read(e.g. an I/O error, or the thread was interrupted), the index is returned
+	 * but not kept, so that the next call builds it again.
+	 *
+	 * @return the index of current {@code java.class.path}
+	 */
+	public static ClassPathIndex getDefault() {
+		String cp = System.getProperty("java.class.path", "");
+		ClassPathIndex ret = defaultIndex;
+		if(ret == null || !ret.classPath.equals(cp)) {
+			ret = of(cp);
+			if(ret.complete) defaultIndex = ret;
+		}
+		return ret;
+	}
+
+	/**
+	 * Builds an index of given class path.
+	 *
+	 * @param classPath entries separated with {@link File#pathSeparator}
+	 * @return a new index
+	 */
+	public static ClassPathIndex of(String classPath) {
+		List<Path> entries = new ArrayList<>();
+		for(String s : classPath.split(File.pathSeparator)) {
+			if(s.isEmpty()) continue;
+			try {
+				entries.add(Paths.get(s).toAbsolutePath());
+			} catch (InvalidPathException e) {
+				if(JarPath.isDebug()) e.printStackTrace();
+			}
+		}
+
+		List<Entry> parsed = entries.parallelStream().map(Entry::read).collect(Collectors.toList());
+
+		List<Integer> directories = new ArrayList<>();
+		Map<String, Integer> classes = new HashMap<>();
+		Map<String, Integer> packages = new HashMap<>();
+		boolean complete = true;
+		for(int i = 0; i < parsed.size(); i++) {
+			Entry e = parsed.get(i);
+			if(e == Entry.FAILED) complete = false;
+			if(e.directory) directories.add(i);
+			for(String name : e.classes) {
+				classes.putIfAbsent(name, i);
+				int slash = name.lastIndexOf('/');
+				packages.putIfAbsent(slash < 0 ? "" : name.substring(0, slash).replace('/', '.'), i);
+			}
+		}
+		return new ClassPathIndex(classPath, Collections.unmodifiableList(entries),
+				directories.stream().mapToInt(Integer::intValue).toArray(), classes, packages, complete);
+	}
+
+	/**
+	 * Returns every entry of the class path, in order.
+	 * @return unmodifiable list of absolute paths
+	 */
+	public List<Path> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Returns the class path entry that contains given class.
+	 *
+	 * @param c the class to find
+	 * @return the .jar file or class directory that contains the class, or {@code null} if not found
+	 */
+	public Path getEntry(Class<?> c) {
+		return getEntry(c.getName());
+	}
+
+	/**
+	 * Returns the class path entry that contains given class.<br>
+	 * If the class is in more than one entry, the first one(which the class loader would use) is returned.
+	 *
+	 * @param className binary name of the class(e.g. {@code java.lang.String})
+	 * @return the .jar file or class directory that contains the class, or {@code null} if not found
+	 */
+	public Path getEntry(String className) {
+		String resource = className.replace('.', '/') + ".class";
+		Integer jar = classes.get(resource);
+		int limit = jar == null ? entries.size() : jar;
+		for(int dir : directories) {
+			if(dir >= limit) break;
+			if(JarPath.readAttributes(entries.get(dir).resolve(resource)) != null) return entries.get(dir);
+		}
+		return jar == null ? null : entries.get(jar);
+	}
+
+	/**
+	 * Returns the first .jar entry that contains given package.
+	 * Directory entries are not searched.
+	 *
+	 * @param packageName name of the package(e.g. {@code java.lang})
+	 * @return the .jar file that contains the package, or {@code null} if not found
+	 */
+	public Path getPackageEntry(String packageName) {
+		Integer i = packages.get(packageName);
+		return i == null ? null : entries.get(i);
+	}
+
+	@Override
+	public String toString() {
+		return "ClassPathIndex [entries=" + entries.size() + ", directories=" + directories.length
+				+ ", classes=" + classes.size() + ", packages=" + packages.size() + "]";
+	}
+
+	/** Result of reading a single class path entry. */
+	private static class Entry {
+		/** The entry does not exist, or is not a zip file. */
+		private static final Entry NONE = new Entry(false, List.of());
+		/** The entry could not be read this time(e.g. {@link java.nio.channels.ClosedByInterruptException}). */
+		private static final Entry FAILED = new Entry(false, List.of());
+
+		private final boolean directory;
+		private final List<String> classes;
+
+		private Entry(boolean directory, List<String> classes) {
+			this.directory = directory;
+			this.classes = classes;
+		}
+
+		private static Entry read(Path p) {
+			BasicFileAttributes attr = JarPath.readAttributes(p);
+			if(attr == null) return NONE;
+			if(attr.isDirectory()) return new Entry(true, List.of());
+			try {
+				return new Entry(false, readCentralDirectory(p));
+			} catch (ZipException | RuntimeException e) {
+				if(JarPath.isDebug()) e.printStackTrace();
+				return NONE;
+			} catch (IOException e) {
+				if(JarPath.isDebug()) e.printStackTrace();
+				return FAILED;
+			}
+		}
+	}
+
+	private static final int EOCD_SIG = 0x06054b50;
+	private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+	private static final int ZIP64_EOCD_SIG = 0x06064b50;
+	private static final int CEN_SIG = 0x02014b50;
+	private static final int EOCD_LEN = 22;
+	private static final int MAX_COMMENT = 0xFFFF;
+
+	/**
+	 * Reads names of ".class" entries from the central directory of a zip file.<br>
+	 * {@code META-INF/} entries(including multi-release versions) and {@code module-info.class} are skipped.<br>
+	 * A file that is not a valid zip file is reported with a {@link ZipException}.
+	 */
+	static List<String> readCentralDirectory(Path zip) throws IOException {
+		return readCentralDirectory(zip, ClassPathIndex::isClassEntry);
+	}
+
+	/** Selects entries by their raw(UTF-8) name, without decoding it. */
+	@FunctionalInterface
+	interface NameFilter {
+		NameFilter ALL = (name, len) -> true;
+
+		boolean accept(byte[] name, int len);
+	}
+
+	/**
+	 * Reads names of entries accepted by the filter from the central directory of a zip file.
+	 */
+	static List<String> readCentralDirectory(Path zip, NameFilter filter) throws IOException {
+		try (FileChannel ch = FileChannel.open(zip, StandardOpenOption.READ)) {
+			long size = ch.size();
+			if(size < EOCD_LEN) throw new ZipException("Not a zip file : " + zip);
+
+			long tailStart = Math.max(0, size - EOCD_LEN - MAX_COMMENT);
+			ByteBuffer tail = read(ch, tailStart, (int) (size - tailStart));
+			int eocd = -1;
+			for(int i = tail.limit() - EOCD_LEN; i >= 0; i--) {
+				if(tail.getInt(i) == EOCD_SIG) {
+					eocd = i;
+					break;
+				}
+			}
+			if(eocd < 0) throw new ZipException("End of central directory not found : " + zip);
+
+			long cenSize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+			long cenOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+			if((cenSize == 0xFFFFFFFFL || cenOffset == 0xFFFFFFFFL) && eocd >= 20 && tail.getInt(eocd - 20) == ZIP64_LOCATOR_SIG) {
+				long zip64Eocd = tail.getLong(eocd - 20 + 8);
+				if(zip64Eocd < 0 || zip64Eocd > size - 56) throw new ZipException("Invalid zip64 end of central directory : " + zip);
+				ByteBuffer z = read(ch, zip64Eocd, 56);
+				if(z.getInt(0) != ZIP64_EOCD_SIG) throw new ZipException("Invalid zip64 end of central directory : " + zip);
+				cenSize = z.getLong(40);
+				cenOffset = z.getLong(48);
+			}
+			if(cenOffset + cenSize > size || cenSize > Integer.MAX_VALUE) throw new ZipException("Invalid central directory : " + zip);
+
+			ByteBuffer cen = read(ch, cenOffset, (int) cenSize);
+			List<String> ret = new ArrayList<>();
+			byte[] buf = new byte[256];
+			int pos = 0;
+			while(pos + 46 <= cen.limit() && cen.getInt(pos) == CEN_SIG) {
+				int nameLen = Short.toUnsignedInt(cen.getShort(pos + 28));
+				int extraLen = Short.toUnsignedInt(cen.getShort(pos + 30));
+				int commentLen = Short.toUnsignedInt(cen.getShort(pos + 32));
+				if(nameLen > buf.length) buf = new byte[nameLen];
+				cen.get(pos + 46, buf, 0, nameLen);
+				if(filter.accept(buf, nameLen)) ret.add(new String(buf, 0, nameLen, StandardCharsets.UTF_8));
+				pos += 46 + nameLen + extraLen + commentLen;
+			}
+			return ret;
+		}
+	}
+
+	/** Reads {@code len} bytes at {@code position} into a little-endian heap buffer. */
+	private static ByteBuffer read(FileChannel ch, long position, int len) throws IOException {
+		ByteBuffer ret = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+		while(ret.hasRemaining()) {
+			if(ch.read(ret, position + ret.position()) < 0) throw new EOFException("Unexpected end of file at " + (position + ret.position()));
+		}
+		return ret.clear();
+	}
+
+	private static final byte[] CLASS_SUFFIX = ".class".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] META_INF = "META-INF/".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] MODULE_INFO = "module-info.class".getBytes(StandardCharsets.US_ASCII);
+
+	private static boolean isClassEntry(byte[] name, int len) {
+		if(len <= CLASS_SUFFIX.length || startsWith(name, len, META_INF)) return false;
+		for(int i = 0; i < CLASS_SUFFIX.length; i++) {
+			if(name[len - CLASS_SUFFIX.length + i] != CLASS_SUFFIX[i]) return false;
+		}
+		return !(len == MODULE_INFO.length && startsWith(name, len, MODULE_INFO));
+	}
+
+	private static boolean startsWith(byte[] name, int len, byte[] prefix) {
+		if(len < prefix.length) return false;
+		for(int i = 0; i < prefix.length; i++) {
+			if(name[i] != prefix[i]) return false;
+		}
+		return true;
+	}
+}
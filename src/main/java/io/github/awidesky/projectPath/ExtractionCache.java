@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts entries of a .jar file(native libraries, large data files, ...) once, and reuses them in later runs.<p>
+ * Extracted files are content-addressed : an entry is stored at {@code (cache directory)/(crc)-(size)/(file name)},
+ * where the CRC-32 and size are read from the central directory of the .jar file.
+ * After a copy is written, its size and last modified time are recorded in a stamp file({@code (cache directory)/stamps/(crc)-(size)/(file name)}).
+ * A cached copy whose size and last modified time match the stamp is used without reading it. Otherwise
+ * (e.g. modified in place, or extracted by another process meanwhile), it's valid only when it has the same size and CRC-32 as the entry,
+ * and is stamped again if so. Each entry is checked once per process; later calls in the same process do not access the file system.
+ * When the .jar file is replaced, only the entries whose content changed are extracted again.<p>
+ *
+ * Each entry is written to a temporary file in the same directory and atomically renamed,
+ * so that several processes starting at once never see a half-written file.<p>
+ *
+ * Old versions are never deleted by this class. The cache directory is safe to delete while the application is not running.
+ *
+ * <pre>
+ * try (ExtractionCache cache = ExtractionCache.of(Main.class, "myapp")) {
+ *     System.load(cache.extract("native/libfoo.so").toString());
+ * }
+ * </pre>
+ */
+public final class ExtractionCache implements Closeable {
+
+	/** Name of the directory under application local folder, where entries are extracted. */
+	public static final String DIRECTORY_NAME = "extracted";
+	/** Name of the directory under {@link ExtractionCache#DIRECTORY_NAME}, where stamps of extracted files are written. */
+	private static final String STAMP_DIRECTORY_NAME = "stamps";
+	/** Size of the buffer used to check unstamped copies. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Path jarFile;
+	private final Path directory;
+	/** Entry name to extracted file, validated in this process. */
+	private final ConcurrentHashMap<String, Path> extracted = new ConcurrentHashMap<>();
+	private ZipFile zip = null;
+	private boolean closed = false;
+
+	private ExtractionCache(Path jarFile, Path directory) {
+		this.jarFile = Objects.requireNonNull(jarFile, "The class is not packaged into a .jar file");
+		this.directory = directory;
+	}
+
+	/**
+	 * Creates a cache for the .jar file that contains given class({@link JarPath#getJarFile(Class)}),
+	 * stored in {@code UserDataPath.appLocalDirectory(appSubFolders...)/extracted}.
+	 *
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @param appSubFolders the names of subdirectories under application local folder
+	 * @return a new cache
+	 * @throws NullPointerException if the class is not in a .jar file
+	 */
+	public static ExtractionCache of(Class<?> c, String... appSubFolders) {
+		return new ExtractionCache(JarPath.getJarFile(c), UserDataPath.appLocalDirectory(appSubFolders).resolve(DIRECTORY_NAME));
+	}
+
+	/**
+	 * Creates a cache of given .jar file, stored in given directory.
+	 *
+	 * @param jarFile the .jar file to extract entries from
+	 * @param directory the directory where the entries are extracted
+	 * @return a new cache
+	 */
+	public static ExtractionCache of(Path jarFile, Path directory) {
+		return new ExtractionCache(jarFile, directory);
+	}
+
+	/** @return the .jar file */
+	public Path getJarFile() {
+		return jarFile;
+	}
+
+	/** @return the directory where the entries are extracted */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns the extracted file of given entry. The entry is extracted only if there's no valid cached copy.
+	 *
+	 * @param entryName name of the entry(e.g. {@code native/libfoo.so})
+	 * @return path of the extracted file
+	 * @throws NoSuchFileException if the entry is not in the .jar file
+	 * @throws IOException if an I/O error occurs
+	 */
+	public Path extract(String entryName) throws IOException {
+		Path ret = extracted.get(entryName);
+		if(ret != null) return ret;
+
+		ZipFile zip = zipFile();
+		ZipEntry entry = zip.getEntry(entryName);
+		if(entry == null || entry.isDirectory()) throw new NoSuchFileException(entryName, null, "No such entry in " + jarFile);
+		String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+		String dirName = String.format("%08x-%d", entry.getCrc(), entry.getSize());
+		Path dir = directory.resolve(dirName);
+		Path stamp = directory.resolve(STAMP_DIRECTORY_NAME).resolve(dirName).resolve(fileName);
+		ret = dir.resolve(fileName);
+
+		if(!isValid(ret, entry, stamp)) write(zip, entry, dir, ret, stamp);
+		extracted.put(entryName, ret);
+		return ret;
+	}
+
+	/**
+	 * Extracts given entry(see {@link ExtractionCache#extract(String)}), and maps it to memory as read-only.
+	 *
+	 * @param entryName name of the entry
+	 * @return read-only buffer of the extracted file
+	 * @throws IOException if an I/O error occurs
+	 */
+	public MappedByteBuffer map(String entryName) throws IOException {
+		try (FileChannel ch = FileChannel.open(extract(entryName), StandardOpenOption.READ)) {
+			return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+		}
+	}
+
+	/**
+	 * Closes the .jar file, if opened. Extracted files are kept.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		closed = true;
+		if(zip != null) zip.close();
+		zip = null;
+	}
+
+	@Override
+	public String toString() {
+		return "ExtractionCache [jarFile=" + jarFile + ", directory=" + directory + "]";
+	}
+
+	private synchronized ZipFile zipFile() throws IOException {
+		if(closed) throw new IOException("ExtractionCache is closed");
+		if(zip == null) zip = new ZipFile(jarFile.toFile());
+		return zip;
+	}
+
+	/**
+	 * Checks the size first, so that a copy of other size is never read.
+	 * A stamped copy is not read either; an unstamped copy is read once, and stamped if valid.
+	 */
+	private static boolean isValid(Path file, ZipEntry entry, Path stamp) {
+		BasicFileAttributes attr = JarPath.readAttributes(file);
+		if(attr == null || !attr.isRegularFile() || attr.size() != entry.getSize()) return false;
+		if(stampOf(attr).equals(readStamp(stamp))) return true;
+		if(crc(file) != entry.getCrc()) return false;
+		writeStamp(stamp, attr);
+		return true;
+	}
+
+	private static String stampOf(BasicFileAttributes attr) {
+		return attr.size() + " " + attr.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+	}
+
+	/** @return content of the stamp file, or {@code null} if it cannot be read */
+	private static String readStamp(Path stamp) {
+		try {
+			return Files.readString(stamp);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/** Failing to write a stamp is not an error : the copy is checked again in the next run. */
+	private static void writeStamp(Path stamp, BasicFileAttributes attr) {
+		try {
+			Files.createDirectories(stamp.getParent());
+			Files.writeString(stamp, stampOf(attr));
+		} catch (IOException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+		}
+	}
+
+	/** @return CRC-32 of the file, or {@code -1} if it cannot be read */
+	private static long crc(Path file) {
+		CRC32 crc = new CRC32();
+		ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			while(ch.read(buf) >= 0) {
+				buf.flip();
+				crc.update(buf);
+				buf.clear();
+			}
+			return crc.getValue();
+		} catch (IOException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+			return -1L;
+		}
+	}
+
+	/**
+	 * Writes the entry to a temporary file and renames it, replacing an invalid copy if any.<br>
+	 * If another process renamed first, its copy has the same content. If it cannot be replaced
+	 * (e.g. a loaded native library in Windows), the valid copy is kept.
+	 */
+	private static void write(ZipFile zip, ZipEntry entry, Path dir, Path target, Path stamp) throws IOException {
+		Files.createDirectories(dir);
+		Path tmp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+		try {
+			try (InputStream in = zip.getInputStream(entry)) {
+				Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+			}
+			try {
+				Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			BasicFileAttributes attr = JarPath.readAttributes(target);
+			if(attr != null) writeStamp(stamp, attr);
+			if(JarPath.isDebug()) System.out.println("[JarPath|debug] Extracted " + entry.getName() + " to " + target);
+		} catch (IOException e) {
+			/* e.g. FileAlreadyExistsException, or the file is in use(loaded native library in Windows) */
+			if(!isValid(target, entry, stamp)) throw e;
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+}
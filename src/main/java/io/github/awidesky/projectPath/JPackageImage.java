@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An application image made by {@code jpackage} : the launcher, the {@code app} directory(where the .jar files and the
+ * launcher configuration are), the bundled runtime, and the parsed launcher configuration({@code (launcher name).cfg}).<p>
+ * Supported layouts are :
+ * <ul>
+ * <li>Windows : {@code (root)/(launcher).exe}, {@code (root)/app}, {@code (root)/runtime}</li>
+ * <li>Linux : {@code (root)/bin/(launcher)}, {@code (root)/lib/app}, {@code (root)/lib/runtime}</li>
+ * <li>MacOS : {@code (name).app/Contents/MacOS/(launcher)}, {@code (name).app/Contents/app}, {@code (name).app/Contents/runtime}</li>
+ * </ul>
+ * The image of the running application({@link JPackageImage#current()}) is parsed once,
+ * and {@link JarPath} uses its {@code app} directory as the first candidate.
+ *
+ * <pre>
+ * JPackageImage image = JPackageImage.current();
+ * Path resource = image != null ? image.resolve("data/default.conf") : fallback;
+ * </pre>
+ */
+public final class JPackageImage {
+
+	/** System property that {@code jpackage} launchers set to the path of the launcher. */
+	public static final String APP_PATH_PROPERTY = "jpackage.app-path";
+
+	/** Parsed image of the last seen {@code jpackage.app-path}. */
+	private static volatile Current current = null;
+
+	private final Path launcher;
+	private final Path root;
+	private final Path appDirectory;
+	private final Path runtimeDirectory;
+	private final Path configFile;
+	/** Section name to the entries of the section, in the order of the file. Keys may repeat. */
+	private final Map<String, List<Map.Entry<String, String>>> config;
+	private final Path mainJar;
+	private final String mainClass;
+	private final List<Path> classPath;
+	private final List<String> javaOptions;
+	private final List<String> arguments;
+
+	private JPackageImage(Path launcher, Path root, Path appDirectory, Path runtimeDirectory, Path configFile,
+			Map<String, List<Map.Entry<String, String>>> config) {
+		this.launcher = launcher;
+		this.root = root;
+		this.appDirectory = appDirectory;
+		this.runtimeDirectory = runtimeDirectory;
+		this.configFile = configFile;
+		this.config = config;
+		String jar = substitute(get("Application", "app.mainjar"));
+		this.mainJar = jar == null ? null : appDirectory.resolve(jar);
+		this.mainClass = get("Application", "app.mainclass");
+		List<Path> cp = new ArrayList<>();
+		for(String value : getAll("Application", "app.classpath")) {
+			for(String s : substitute(value).split(File.pathSeparator)) {
+				if(!s.isEmpty()) cp.add(appDirectory.resolve(s));
+			}
+		}
+		this.classPath = Collections.unmodifiableList(cp);
+		List<String> options = new ArrayList<>();
+		for(String value : getAll("JavaOptions", "java-options")) options.add(substitute(value));
+		this.javaOptions = Collections.unmodifiableList(options);
+		this.arguments = Collections.unmodifiableList(getAll("ArgOptions", "arguments"));
+	}
+
+	/**
+	 * Returns the image of the running application, parsed from {@code jpackage.app-path}.
+	 * The image is parsed once, and parsed again only if the property changes.
+	 *
+	 * @return the image, or {@code null} if the application is not launched by a {@code jpackage} launcher,
+	 * or the layout of the image is unknown
+	 */
+	public static JPackageImage current() {
+		String appPath = System.getProperty(APP_PATH_PROPERTY);
+		if(appPath == null) return null;
+		Current c = current;
+		if(c != null && c.appPath.equals(appPath)) return c.image;
+		JPackageImage ret;
+		try {
+			ret = of(Paths.get(appPath));
+		} catch (RuntimeException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+			ret = null;
+		}
+		current = new Current(appPath, ret);
+		return ret;
+	}
+
+	/**
+	 * Parses the image of given launcher.
+	 *
+	 * @param launcher path of the launcher executable
+	 * @return the image, or {@code null} if there's no {@code app} directory in any known layout
+	 */
+	public static JPackageImage of(Path launcher) {
+		Path bin = launcher.toAbsolutePath().getParent();
+		if(bin == null) return null;
+		Path parent = bin.getParent();
+
+		Path root = null, app = null, runtime = null;
+		if(isDirectory(bin.resolve("app"))) { // Windows
+			root = bin;
+			app = bin.resolve("app");
+			runtime = bin.resolve("runtime");
+		} else if(parent != null && isDirectory(parent.resolve("lib").resolve("app"))) { // Linux
+			root = parent;
+			app = parent.resolve("lib").resolve("app");
+			runtime = parent.resolve("lib").resolve("runtime");
+		} else if(parent != null && isDirectory(parent.resolve("app"))) { // MacOS
+			root = parent.getParent() != null ? parent.getParent() : parent;
+			app = parent.resolve("app");
+			runtime = parent.resolve("runtime");
+		} else {
+			if(JarPath.isDebug()) System.out.println("[JarPath|debug] Unknown jpackage image layout : " + launcher);
+			return null;
+		}
+		if(!isDirectory(runtime)) runtime = null;
+
+		String name = launcher.getFileName().toString();
+		if(name.toLowerCase().endsWith(".exe")) name = name.substring(0, name.length() - 4);
+		Path cfg = app.resolve(name + ".cfg");
+		Map<String, List<Map.Entry<String, String>>> config;
+		try {
+			config = parse(cfg);
+		} catch (NoSuchFileException e) {
+			cfg = null;
+			config = Collections.emptyMap();
+		} catch (IOException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+			cfg = null;
+			config = Collections.emptyMap();
+		}
+		return new JPackageImage(launcher, root, app, runtime, cfg, config);
+	}
+
+	/** @return path of the launcher({@code jpackage.app-path}) */
+	public Path getLauncher() {
+		return launcher;
+	}
+
+	/** @return root directory of the image(for MacOS, the {@code .app} bundle) */
+	public Path getRoot() {
+		return root;
+	}
+
+	/** @return the {@code app} directory, where the .jar files and the launcher configuration are */
+	public Path getAppDirectory() {
+		return appDirectory;
+	}
+
+	/** @return the bundled runtime directory, or {@code null} if not exists */
+	public Path getRuntimeDirectory() {
+		return runtimeDirectory;
+	}
+
+	/** @return the launcher configuration file, or {@code null} if not exists */
+	public Path getConfigFile() {
+		return configFile;
+	}
+
+	/** @return the main .jar file({@code app.mainjar}), or {@code null} if not configured(e.g. a modular application) */
+	public Path getMainJar() {
+		return mainJar;
+	}
+
+	/** @return the main class({@code app.mainclass}), or {@code null} if not configured */
+	public String getMainClass() {
+		return mainClass;
+	}
+
+	/** @return unmodifiable list of class path entries({@code app.classpath}), resolved against the {@code app} directory */
+	public List<Path> getClassPath() {
+		return classPath;
+	}
+
+	/** @return unmodifiable list of JVM options({@code java-options}), with {@code $APPDIR}, {@code $BINDIR} and {@code $ROOTDIR} substituted */
+	public List<String> getJavaOptions() {
+		return javaOptions;
+	}
+
+	/** @return unmodifiable list of default arguments({@code arguments}) */
+	public List<String> getArguments() {
+		return arguments;
+	}
+
+	/**
+	 * Returns the first value of given key in the launcher configuration, as is.
+	 *
+	 * @param section name of the section, without brackets(e.g. {@code Application})
+	 * @param key the key
+	 * @return the value, or {@code null} if not exists
+	 */
+	public String get(String section, String key) {
+		for(Map.Entry<String, String> e : config.getOrDefault(section, Collections.emptyList())) {
+			if(e.getKey().equals(key)) return e.getValue();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns every value of given key in the launcher configuration, as is, in the order of the file.
+	 *
+	 * @param section name of the section, without brackets(e.g. {@code JavaOptions})
+	 * @param key the key
+	 * @return list of the values, empty if not exists
+	 */
+	public List<String> getAll(String section, String key) {
+		List<String> ret = new ArrayList<>();
+		for(Map.Entry<String, String> e : config.getOrDefault(section, Collections.emptyList())) {
+			if(e.getKey().equals(key)) ret.add(e.getValue());
+		}
+		return ret;
+	}
+
+	/**
+	 * Resolves a bundled file against the {@code app} directory, without accessing the file system.
+	 *
+	 * @param other path of the file, relative to the {@code app} directory
+	 * @return the resolved path
+	 */
+	public Path resolve(String other) {
+		return appDirectory.resolve(other);
+	}
+
+	@Override
+	public String toString() {
+		return "JPackageImage [launcher=" + launcher + ", app=" + appDirectory + ", runtime=" + runtimeDirectory + "]";
+	}
+
+	/** Replaces variables that launchers substitute in the configuration. */
+	private String substitute(String value) {
+		if(value == null || value.indexOf('$') < 0) return value;
+		return value.replace("$APPDIR", appDirectory.toString()).replace("$BINDIR", launcher.toAbsolutePath().getParent().toString())
+				.replace("$ROOTDIR", root.toString());
+	}
+
+	/**
+	 * Parses an ini-style launcher configuration. Keys may repeat in a section.
+	 * Lines starting with {@code ;} or {@code #} are comments.
+	 */
+	static Map<String, List<Map.Entry<String, String>>> parse(Path cfg) throws IOException {
+		Map<String, List<Map.Entry<String, String>>> ret = new LinkedHashMap<>();
+		List<Map.Entry<String, String>> section = null;
+		try (BufferedReader br = Files.newBufferedReader(cfg, StandardCharsets.UTF_8)) {
+			String line;
+			while((line = br.readLine()) != null) {
+				line = line.strip();
+				if(line.isEmpty() || line.startsWith(";") || line.startsWith("#")) continue;
+				if(line.startsWith("[") && line.endsWith("]")) {
+					section = ret.computeIfAbsent(line.substring(1, line.length() - 1).strip(), k -> new ArrayList<>());
+					continue;
+				}
+				int eq = line.indexOf('=');
+				if(eq < 0 || section == null) continue;
+				section.add(Map.entry(line.substring(0, eq).strip(), line.substring(eq + 1).strip()));
+			}
+		}
+		return ret;
+	}
+
+	/** {@code image} is {@code null} if the layout of {@code appPath} is unknown, so that it's not parsed again. */
+	private static final class Current {
+		private final String appPath;
+		private final JPackageImage image;
+
+		private Current(String appPath, JPackageImage image) {
+			this.appPath = appPath;
+			this.image = image;
+		}
+	}
+
+	private static boolean isDirectory(Path p) {
+		BasicFileAttributes attr = JarPath.readAttributes(p);
+		return attr != null && attr.isDirectory();
+	}
+}
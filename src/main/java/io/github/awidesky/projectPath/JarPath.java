@@ -10,17 +10,21 @@
 package io.github.awidesky.projectPath;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.net.MalformedURLException;
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.io.IOException;
 import java.net.URL;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
-import java.util.regex.Pattern;
+
+import io.github.awidesky.projectPath.CandidateProvider.Cost;
 
 /***
  * Provides location of the running .jar file, or project's root folder(if run on IDE).
@@ -29,8 +33,13 @@ import java.util.regex.Pattern;
  * If none was provided, {@code JarPath} will use {@code JarPath.class}, which means
  * it considers the {@code JarPath} class is packaged into the main .jar file.<p>
  * 
- * Return value of last call is cached; {@code JarPath#getProjectPath()}
- * will return the cached value without re-evalueation if present.<p>
+ * Resolved paths are cached per {@code Class} (and per probe file), so repeated
+ * calls with the same arguments do not touch the filesystem again. The cache does not
+ * keep classes or their class loaders from being unloaded, and can be dropped with
+ * {@link JarPath#clearCache()}.<p>
+ * 
+ * Return value of last call is also remembered; {@code JarPath#getProjectPath()}
+ * will return that value without re-evalueation if present.<p>
  * 
  * <ul>
  * There are two main "approaches" to find the path.
@@ -48,25 +57,41 @@ import java.util.regex.Pattern;
  * 	</ul>
  * </ul>
  * The "working directory" approach is used first, and this behavior can change via
- * {@link JarPath#setClassPathSearchFirst(boolean)}.
+ * {@link JarPath#setClassPathSearchFirst(boolean)}.<p>
+ * 
+ * Static methods delegate to a default {@link JarPathResolver}. Subsystems that need their own settings
+ * can build a separate {@code JarPathResolver}, which has its own cache and does not affect {@code JarPath}.<p>
+ * 
+ * Each resolution emits JDK Flight Recorder events({@link ResolutionEvent},
+ * {@link CandidateEvaluationEvent}), and can be counted in {@link JarPathMetrics}.
  */
 public class JarPath {
 
-	private static boolean classPathSearchFirst = false;
-	private static String jarPath = null;
-	private static boolean debug = false;
+	private static volatile JarPathResolver defaultResolver = JarPathResolver.builder().build();
+	
+	/**
+	 * Returns the resolver that static methods of {@code JarPath} delegate to.<br>
+	 * Setters of {@code JarPath} replace it with a new resolver, so a returned instance never changes its settings.
+	 * 
+	 * @return the default resolver
+	 */
+	public static JarPathResolver getDefaultResolver() {
+		return defaultResolver;
+	}
 	
 	/**
 	 * Returns {@code true} if debug mode.
 	 * In debug mode, exception message is printed for each candidate.
 	 * <br>If {@link JarPath#getProjectPath()} returns invalid path or fails,
-	 * try setting debug mode and call {@link JarPath#getProjectPath(Class)}
+	 * try setting debug mode, {@link JarPath#clearCache()} and call {@link JarPath#getProjectPath(Class)}
 	 * again to see why candidates fail.
+	 * <br>Debug mode prints to {@code System.out}. In production, record {@link CandidateEvaluationEvent}
+	 * with JDK Flight Recorder, or enable {@link JarPathMetrics} instead.
 	 *  
 	 * @return {@code true} if debug mode.
 	 */
 	public static boolean isDebug() {
-		return debug;
+		return defaultResolver.isDebug();
 	}
 	
 	/**
@@ -74,8 +99,8 @@ public class JarPath {
 	 * 
 	 * @param debug new debug mode.
 	 */
-	public static void setDebug(boolean debug) {
-		JarPath.debug = debug;
+	public static synchronized void setDebug(boolean debug) {
+		if(defaultResolver.isDebug() != debug) defaultResolver = defaultResolver.withDebug(debug);
 	}
 	
 	/**
@@ -84,14 +109,59 @@ public class JarPath {
 	 * @return {@code true} if "class file path approach" is tried before "working directory approach".
 	 */
 	public static boolean isClassPathSearchFirst() {
-		return classPathSearchFirst;
+		return defaultResolver.isClassPathSearchFirst();
 	}
 	/**
 	 * Sets whether "class file path approach" is tried before "working directory approach" or not.<br>
 	 * The default value is {@code false}.
 	 */
-	public static void setClassPathSearchFirst(boolean classFileSearchFirst) {
-		JarPath.classPathSearchFirst = classFileSearchFirst;
+	public static synchronized void setClassPathSearchFirst(boolean classFileSearchFirst) {
+		if(defaultResolver.isClassPathSearchFirst() != classFileSearchFirst) {
+			defaultResolver = defaultResolver.toBuilder().classPathSearchFirst(classFileSearchFirst).build();
+		}
+	}
+	
+	/**
+	 * Checks if the candidates are probed concurrently.<br>
+	 * The default value is {@code false}.
+	 * @return {@code true} if the candidates are probed concurrently.
+	 */
+	public static boolean isParallelProbing() {
+		return defaultResolver.isParallelProbing();
+	}
+	/**
+	 * Sets whether the candidates are probed concurrently or one after another.<br>
+	 * In parallel mode, every candidate is evaluated at the same time on a small pool of daemon threads,
+	 * so that the resolution takes about as long as the slowest single candidate.
+	 * This helps when each filesystem access is slow(e.g. network home directories).<br>
+	 * The result is the same as in sequential mode : the first matching candidate in the
+	 * order of {@link JarPath#getCandidates(Class)} is returned, and probes of lower
+	 * priority candidates are cancelled once it's found.<br>
+	 * The default value is {@code false}.
+	 */
+	public static synchronized void setParallelProbing(boolean parallelProbing) {
+		if(defaultResolver.isParallelProbing() != parallelProbing) {
+			defaultResolver = defaultResolver.toBuilder().parallelProbing(parallelProbing).build();
+		}
+	}
+	
+	/**
+	 * Discards every cached path, so that next calls re-evaluate the candidates.<br>
+	 * Use this when the running .jar file(or the working directory) may have been moved.
+	 */
+	public static void clearCache() {
+		defaultResolver.clearCache();
+	}
+	
+	/**
+	 * Discards cached paths of given class, and of every class from the same location.
+	 * Next calls with those classes re-evaluate the candidates.
+	 * 
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @see ProjectPathWatcher
+	 */
+	public static void clearCache(Class<?> c) {
+		defaultResolver.clearCache(c);
 	}
 	
 	/***
@@ -107,19 +177,75 @@ public class JarPath {
 	 * @return a path to the directory of .jar file (or project) that contains this class 
 	 */
 	public static String getProjectPath() {
-		if(jarPath != null) return jarPath;
-		return getProjectPath(JarPath.class);
+		return defaultResolver.getProjectPath();
 	}
+	/***
+	 * Same as {@link JarPath#getProjectPath()}, but returns a {@code Path}.
+	 * 
+	 * @return a path to the directory of .jar file (or project) that contains this class 
+	 */
+	public static Path getProjectDirectory() {
+		return defaultResolver.getProjectDirectory();
+	}
+	
 	/***
 	 * Return the location of jar file or project path(if run on IDE).<p>
-	 * If it's evaluated before, return the value.
+	 * If it's evaluated before with same {@code Class}, return the cached value.
 	 * If not, generate new value.<p>
 	 * 
 	 * @param c a class whose .class file resides inside of running .jar
 	 * @return a path to the directory of .jar file (or project) that contains given class 
 	 */
 	public static String getProjectPath(Class<?> c) {
-		return (jarPath = generateProjectPath(c, getJarName(c)));
+		return defaultResolver.getProjectPath(c);
+	}
+	/***
+	 * Same as {@link JarPath#getProjectPath(Class)}, but returns a {@code Path}.
+	 * 
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return a path to the directory of .jar file (or project) that contains given class 
+	 */
+	public static Path getProjectDirectory(Class<?> c) {
+		return defaultResolver.getProjectDirectory(c);
+	}
+	
+	/**
+	 * Starts resolving the project path of {@code JarPath.class} on a daemon thread, so that it's ready
+	 * before the first call of {@link JarPath#getProjectPath()}.<br>
+	 * Same as {@code getProjectDirectoryAsync(JarPath.class)}, so the same care about changing settings while it runs applies.
+	 * 
+	 * @return a future of the project directory
+	 * @see UserDataPath#prefetch(boolean, String...)
+	 */
+	public static CompletableFuture<Path> prefetch() {
+		return getProjectDirectoryAsync(JarPath.class);
+	}
+	
+	/**
+	 * Starts resolving the project directory of given class on a daemon thread.<br>
+	 * Synchronous calls(e.g. {@link JarPath#getProjectPath(Class)}) made before it completes wait for the in-flight resolution,
+	 * instead of starting another one. Later calls return the cached value.<p>
+	 * The resolution belongs to the default resolver of the time of this call. {@link JarPath#setDebug(boolean)} keeps its cache,
+	 * but {@link JarPath#setClassPathSearchFirst(boolean)}, {@link JarPath#setParallelProbing(boolean)} and {@link JarPath#clearCache()}
+	 * discard it. If one of them is called before the resolution completes, its result is not cached, and later calls resolve again.
+	 * So configure {@code JarPath} before starting the warm-up.
+	 * 
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return a future of {@link JarPath#getProjectDirectory(Class)}
+	 */
+	public static CompletableFuture<Path> getProjectDirectoryAsync(Class<?> c) {
+		return defaultResolver.getProjectDirectoryAsync(c);
+	}
+	
+	/**
+	 * Same as {@link JarPath#getProjectDirectoryAsync(Class)}, but completes with a {@code String}.
+	 * Changing settings while it runs has the same effect.
+	 * 
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return a future of {@link JarPath#getProjectPath(Class)}
+	 */
+	public static CompletableFuture<String> getProjectPathAsync(Class<?> c) {
+		return defaultResolver.getProjectPathAsync(c);
 	}
 	
 	/***
@@ -129,14 +255,85 @@ public class JarPath {
 	 * @return the name of .jar file, or {@code null}
 	 */
 	public static String getJarName(Class<?> c) {
-		String ret = null;
+		return defaultResolver.getJarName(c);
+	}
+	
+	/***
+	 * Returns the .jar file that contains given class.
+	 * 
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return absolute path of the .jar file, or {@code null}
+	 */
+	public static Path getJarFile(Class<?> c) {
+		return defaultResolver.getJarFile(c);
+	}
+	
+	/***
+	 * Returns the parsed location of given class.<br>
+	 * If the class is in an archive nested in a .jar file(e.g. {@code BOOT-INF/lib/x.jar} of a fat jar),
+	 * the outer .jar file and the nested entries are returned, without extracting anything.
+	 * In that case, {@link JarPath#getJarFile(Class)} returns the outer .jar file.
+	 * 
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return the location of the class, or {@code null} if unknown
+	 */
+	public static ArchiveLocation getArchiveLocation(Class<?> c) {
+		return defaultResolver.getArchiveLocation(c);
+	}
+	
+	/**
+	 * Returns the name of the .jar file of each given class.
+	 * Classes from the same location are evaluated only once.
+	 * 
+	 * @param classes classes whose .class file resides inside of .jar files
+	 * @return a {@code Map} from each class to the name of .jar file(or {@code null}), in iteration order of {@code classes}
+	 */
+	public static Map<Class<?>, String> getJarNames(Collection<? extends Class<?>> classes) {
+		return defaultResolver.getJarNames(classes);
+	}
+	
+	/**
+	 * Same as {@code getProjectPaths(classes, false)}.
+	 * 
+	 * @param classes classes whose .class file resides inside of .jar files(or projects)
+	 * @return a {@code Map} from each class to its project path, in iteration order of {@code classes}
+	 * @see JarPath#getProjectPaths(Collection, boolean)
+	 */
+	public static Map<Class<?>, String> getProjectPaths(Collection<? extends Class<?>> classes) {
+		return getProjectPaths(classes, false);
+	}
+	
+	/**
+	 * Returns the project path of each given class, as {@link JarPath#getProjectPath(Class)} does.<p>
+	 * Classes are grouped by their {@code ProtectionDomain} {@code CodeSource} location, and each distinct
+	 * location is resolved only once. So the cost is about one resolution per distinct .jar file(or class directory).
+	 * The results are cached as well, so later calls of {@link JarPath#getProjectPath(Class)} with any of the classes
+	 * will not re-evaluate.<p>
+	 * Unlike {@link JarPath#getProjectPath(Class)}, this does not change the value of {@link JarPath#getProjectPath()}.
+	 * 
+	 * @param classes classes whose .class file resides inside of .jar files(or projects)
+	 * @param parallel if {@code true}, distinct locations are resolved concurrently
+	 * @return a {@code Map} from each class to its project path, in iteration order of {@code classes}
+	 */
+	public static Map<Class<?>, String> getProjectPaths(Collection<? extends Class<?>> classes, boolean parallel) {
+		return defaultResolver.getProjectPaths(classes, parallel);
+	}
+	
+	/**
+	 * Finds the .jar file in {@code java.class.path} that contains given class.
+	 * Used when the location of the class is unknown.
+	 */
+	static Path classPathJarFile(Class<?> c) {
 		try {
-			ret = new File(classLocationBased(c).get()).getName();
-			if(!ret.endsWith(".jar")) ret = null;
+			return jarFileOrNull(ClassPathIndex.getDefault().getEntry(c));
 		} catch (Exception e) {
 			if(isDebug()) e.printStackTrace();
+			return null;
 		}
-		return ret;
+	}
+	
+	static Path jarFileOrNull(Path p) {
+		return p != null && p.getFileName() != null && p.getFileName().toString().endsWith(".jar") ? p : null;
 	}
 	/**
 	 * Return the location of jar file or project path(if run on IDE).<p>
@@ -149,39 +346,77 @@ public class JarPath {
 	 * If all of the candidate is null(normally won't happen), an empty String is return`ed.
 	 * <P>
 	 * 
-	 * Even if it's evaluated before, new value will be generate and stored.<p>
-	 * After calling this method, prefer calling {@code JarPath#getProjectPath()}
-	 * for getting the already generated data without re-generating it.
+	 * If it's evaluated before with same {@code Class} and file, the cached value is returned.<p>
+	 * After calling this method, {@code JarPath#getProjectPath()} also returns
+	 * the value without re-generating it.
 	 *
 	 * @param c a class whose .class file resides inside of running .jar
 	 * @param file a file that has to exist in desired directory
 	 * @return a path to the directory of .jar file (or project) that contains this class 
 	 */
 	public static String getProjectPath(Class<?> c, String file) {
-		return (jarPath = generateProjectPath(c, file));
-	}
-	
-	
-	private static String generateProjectPath(Class<?> c, String file) {
-		List<CandidateEntry> list = getCandidates(c);
-		return list.stream()
-				.map(CandidateEntry::generatePath)
-				.filter(Objects::nonNull)
-				.map(File::new)
-				.filter(File::exists)
-				.filter(f -> file == null || new File(f, file).exists())
-				.map(File::getAbsolutePath)
-				.findFirst()
-				.orElseGet(() -> {
-					if(isDebug()) System.out.println("[JarPath|debug] Unable to find. just return the first non-null thing or empty String");
-					return list.stream() //unable to find. just return the first non-null thing
-							.map(CandidateEntry::generatePath)
-							.filter(Objects::nonNull)
-							.findFirst()
-							.orElse("");
-				});
+		return defaultResolver.getProjectPath(c, file);
+	}
+	/**
+	 * Same as {@link JarPath#getProjectPath(Class, String)}, but returns a {@code Path}.
+	 *
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @param file a file that has to exist in desired directory
+	 * @return a path to the directory of .jar file (or project) that contains this class 
+	 */
+	public static Path getProjectDirectory(Class<?> c, String file) {
+		return defaultResolver.getProjectDirectory(c, file);
 	}
 	
+	/**
+	 * Stores an already known project directory of given class, as if {@link JarPath#getProjectPath(Class)} resolved it.
+	 * Does nothing if it's resolved already.
+	 * 
+	 * @see StartupSnapshot
+	 */
+	static void seed(Class<?> c, Path dir) {
+		defaultResolver.seed(c, dir);
+	}
+	
+	/**
+	 * Replaces every cached value of the location of given class, after the location is moved or renamed.
+	 * 
+	 * @see JarPathResolver#relocate(Class, Path, Path)
+	 */
+	static void relocate(Class<?> c, Path file, Path dir) {
+		defaultResolver.relocate(c, file, dir);
+	}
+	
+	static String generateProjectPath(List<CandidateEntry> list, String file) {
+		return defaultResolver.resolve(list, file).path;
+	}
+	
+	/**
+	 * Reads basic attributes of given path with a single filesystem access.
+	 * Every existence/directory check of {@code JarPath} goes through this method.
+	 * 
+	 * @return attributes of the path, or {@code null} if it does not exist or cannot be read.
+	 */
+	static BasicFileAttributes readAttributes(Path path) {
+		return fileProbe.readAttributes(path);
+	}
+	
+	/** Reads file attributes. Replaced only in tests, to count filesystem access. */
+	@FunctionalInterface
+	interface FileProbe {
+		BasicFileAttributes readAttributes(Path path);
+		
+		FileProbe DEFAULT = p -> {
+			try {
+				return Files.readAttributes(p, BasicFileAttributes.class);
+			} catch (IOException | SecurityException e) {
+				return null;
+			}
+		};
+	}
+	
+	static volatile FileProbe fileProbe = FileProbe.DEFAULT;
+	
 	/**
 	 * Get list of candidates used to find jar path.
 	 * 
@@ -189,17 +424,33 @@ public class JarPath {
 	 * @return
 	 */
 	public static List<CandidateEntry> getCandidates(Class<?> c) {
-		LinkedList<CandidateEntry> ret = new LinkedList<>();		
-		ret.add(new CandidateEntry("System property user.dir", JarPath::property_userdir)); //"working directory" approach #1
-		ret.add(new CandidateEntry("new File(\"\")" , JarPath::fileBased)); //"working directory" approach #2
+		return defaultResolver.getCandidates(c);
+	}
+	
+	/**
+	 * Built-in candidates and the candidates of given providers, sorted by priority.
+	 * If {@code classPathSearchFirst}, the order of built-in candidates except jpackage is reversed.
+	 * 
+	 * @see CandidateProvider
+	 */
+	static List<CandidateEntry> candidates(Class<?> c, boolean classPathSearchFirst, List<CandidateProvider> providers) {
+		int workingDir = classPathSearchFirst ? 200 : 100;
+		int classFile = classPathSearchFirst ? 100 : 200;
+		int first = classPathSearchFirst ? 10 : 0;
+		int second = classPathSearchFirst ? 0 : 10;
 		
-		ret.add(new CandidateEntry(c.getSimpleName() + "Class ProtectionDomain CodeSource location", JarPath.classLocationBased(c))); //"class file path" approach #1
-		ret.add(new CandidateEntry("System property java.class.path", JarPath::property_javaclasspath)); //"class file path" approach #2
-
-		if(classPathSearchFirst) Collections.reverse(ret);
+		List<CandidateEntry> ret = new ArrayList<>(5 + providers.size());
+		ret.add(new CandidateEntry("System property jpackage.app-path", "System property jpackage.app-path", JarPath::jpackage, 0, Cost.MEMORY));
+		ret.add(new CandidateEntry("System property user.dir", "System property user.dir", JarPath::property_userdir, workingDir + first, Cost.MEMORY)); //"working directory" approach #1
+		ret.add(new CandidateEntry("new File(\"\")", "new File(\"\")", JarPath::fileBased, workingDir + second, Cost.MEMORY)); //"working directory" approach #2
 		
-		ret.add(0, new CandidateEntry("System property jpackage.app-path", JarPath::jpackage)); 
+		ret.add(new CandidateEntry(c.getSimpleName() + "Class ProtectionDomain CodeSource location", "ProtectionDomain CodeSource location", JarPath.classLocationBased(c), classFile + first, Cost.MEMORY)); //"class file path" approach #1
+		ret.add(new CandidateEntry("System property java.class.path", "System property java.class.path", () -> property_javaclasspath(c), classFile + second, Cost.FILESYSTEM)); //"class file path" approach #2
 		
+		for(CandidateProvider p : providers) {
+			ret.add(new CandidateEntry(p.getName(), p.getName(), () -> p.getPath(c), p.getPriority(), p.getCost()));
+		}
+		ret.sort(Comparator.comparingInt(CandidateEntry::getPriority));
 		return ret;
 	}
 	
@@ -211,26 +462,50 @@ public class JarPath {
 	 */
 	public static class CandidateEntry {
 		private final String description;
+		/** Name of the approach, used to group {@link JarPathMetrics}. Does not contain the class name. */
+		final String name;
 		private final Supplier<String> gen;
+		private final int priority;
+		private final Cost cost;
+
+		/** Priority of candidates made with {@link CandidateEntry#CandidateEntry(String, Supplier)} : a band after every built-in candidate. */
+		public static final int DEFAULT_PRIORITY = 300;
 
+		/**
+		 * Creates a candidate of priority {@link CandidateEntry#DEFAULT_PRIORITY}, which is tried after every built-in candidate,
+		 * and cost {@link Cost#FILESYSTEM}.
+		 *
+		 * @param description description of the candidate, also used as its name in {@link JarPathMetrics}
+		 * @param gen the path generator
+		 */
 		public CandidateEntry(String description, Supplier<String> gen) {
+			this(description, description, gen, DEFAULT_PRIORITY, Cost.FILESYSTEM);
+		}
+		
+		CandidateEntry(String description, String name, Supplier<String> gen, int priority, Cost cost) {
 			this.description = description;
-			this.gen = () -> {
-				String get = gen.get();
-				if(get == null) {
-					if(isDebug()) {
-						System.out.println("[JarPath|debug] Candidate \"" + description + "\" returned null!");
-					}
-					return null;
-				}
-				File f = new File(get).getAbsoluteFile();
-				while (!f.isDirectory()) f = f.getParentFile();
-				String ret = f.getAbsolutePath();
-				if (System.getProperty("jpackage.app-path") != null && !ret.endsWith("app")) {
-					ret += File.separator + "app";
-				}
-				return ret;
-			};
+			this.name = name;
+			this.gen = gen;
+			this.priority = priority;
+			this.cost = cost;
+		}
+		
+		/**
+		 * Get priority of this candidate. Lower value is tried first.
+		 * @return the priority
+		 * @see CandidateProvider#getPriority()
+		 */
+		public int getPriority() {
+			return priority;
+		}
+		
+		/**
+		 * Get expected cost of generating the path.
+		 * @return the expected cost
+		 * @see CandidateProvider#getCost()
+		 */
+		public Cost getCost() {
+			return cost;
 		}
 		
 		/**
@@ -246,13 +521,48 @@ public class JarPath {
 		 * @return possible jar path
 		 */
 		public String generatePath() {
-			String ret = null;
+			return evaluate().path;
+		}
+		
+		/**
+		 * Evaluates the {@code Supplier}, and finds the nearest existing directory of it.
+		 * Each path is read only once while walking up to the directory.
+		 * 
+		 * @return the evaluated candidate. If the {@code Supplier} failed, its path is {@code null}
+		 * and the reason is stored.
+		 */
+		Candidate evaluate() {
+			return evaluate(isDebug());
+		}
+		
+		/**
+		 * @param debug whether to print the reason of failure
+		 */
+		Candidate evaluate(boolean debug) {
 			try {
-				ret = gen.get();
+				String get = gen.get();
+				if(get == null) {
+					if(debug) {
+						System.out.println("[JarPath|debug] Candidate \"" + description + "\" returned null!");
+					}
+					return Candidate.failed("returned null");
+				}
+				Path p = Paths.get(get).toAbsolutePath();
+				BasicFileAttributes attr;
+				while ((attr = readAttributes(p)) == null || !attr.isDirectory()) {
+					p = p.getParent();
+					if(p == null) {
+						if(debug) {
+							System.out.println("[JarPath|debug] Candidate \"" + description + "\" has no existing directory : " + get);
+						}
+						return Candidate.failed("no existing directory");
+					}
+				}
+				return new Candidate(p, true);
 			} catch (Exception e) {
-				if(isDebug()) e.printStackTrace();
+				if(debug) e.printStackTrace();
+				return Candidate.failed(e.toString());
 			}
-			return ret;
 		}
 		
 		@Override
@@ -262,12 +572,50 @@ public class JarPath {
 	}
 	
 	/**
-	 * Get project path by getting system property jpackage
+	 * Result of a single {@code CandidateEntry} evaluation.
+	 * {@code exists} is {@code true} when {@code path} is already known to be an existing directory,
+	 * and {@code false} when it is not checked yet.
+	 * {@code path} is {@code dir.toString()}, computed once.
+	 * If the evaluation failed, {@code dir} and {@code path} are {@code null} and {@code failure} has the reason.
+	 */
+	static class Candidate {
+		/** Returned when all candidates failed. */
+		static final Candidate EMPTY = new Candidate(Paths.get(""), false);
+		
+		final Path dir;
+		final String path;
+		final boolean exists;
+		final String failure;
+		/** Whether the directory exists and contains the probe file. */
+		boolean matched;
+		
+		Candidate(Path dir, boolean exists) {
+			this(dir, exists, null);
+		}
+		
+		private Candidate(Path dir, boolean exists, String failure) {
+			this.dir = dir;
+			this.path = dir == null ? null : dir.toString();
+			this.exists = exists;
+			this.failure = failure;
+		}
+		
+		static Candidate failed(String failure) {
+			return new Candidate(null, false, failure);
+		}
+	}
+	
+	/**
+	 * Get project path from the jpackage app image : the "app" directory where the .jar files are.
+	 * If the layout of the image is unknown, the launcher path itself.
 	 * 
 	 * doesn't work if the application is not packaged by jpackage
+	 * @see JPackageImage#current()
 	 * */
 	private static String jpackage() {
-		return System.getProperty("jpackage.app-path");
+		JPackageImage image = JPackageImage.current();
+		if(image != null) return image.getAppDirectory().toString();
+		return System.getProperty(JPackageImage.APP_PATH_PROPERTY);
 	}
 	/**
 	 * Get project path by getting system property user.dir
@@ -290,11 +638,15 @@ public class JarPath {
 		return new File("").getAbsolutePath();
 	}
 	/**
-	 * Get project path by getting system property java.class.path
+	 * Get project path by finding the entry of system property java.class.path that contains given class.
+	 * If none of the entries contains it, the first entry is used.
 	 * 
 	 * doesn't work in IDE(points bin folder of target/classes)
+	 * @see ClassPathIndex
 	 * */
-	private static String property_javaclasspath() {
+	private static String property_javaclasspath(Class<?> c) {
+		Path entry = ClassPathIndex.getDefault().getEntry(c);
+		if(entry != null) return entry.toString();
 		return System.getProperty("java.class.path").split(File.pathSeparator)[0];
 	}
 	/**
@@ -304,7 +656,7 @@ public class JarPath {
 	 * doesn't work in IDE(points bin folder of target/classes)
 	 * */
 	private static Supplier<String> classLocationBased(Class<?> cl) { 
-		return () -> urlToFile(getLocation(cl)).getAbsolutePath();
+		return () -> ArchiveLocation.of(getLocation(cl)).getFile().toString();
 	}
 	
 	/**
@@ -318,20 +670,30 @@ public class JarPath {
 	 * If the class is within a JAR file (e.g.,
 	 * "/path/to/my-jar.jar!/my/package/MyClass.class") then it will return the
 	 * path to the JAR (e.g., "file:/path/to/my-jar.jar").
+	 * If the JAR file is nested in another one, the URL of the nested archive is returned as is
+	 * (e.g., "jar:file:/path/to/app.jar!/BOOT-INF/lib/my-jar.jar!/").
+	 * </p>
+	 * <p>
+	 * If the class is in a named module, the location of the module is returned
+	 * (e.g., "file:/path/to/mods/my-module.jar", or "jrt:/my.module" if it's linked into the runtime image).
 	 * </p>
 	 *
 	 * @param c The class whose location is desired.
-	 * @see FileUtils#urlToFile(URL) to convert the result to a {@link File}.
+	 * @return external form of the location URL, or {@code null} if not found
+	 * @see ArchiveLocation#of(String) to parse the result.
 	 */
-	private static URL getLocation(final Class<?> c) {
+	static String getLocation(final Class<?> c) {
 	    if (c == null) return null; // could not load the class
 
+	    // named modules know their location, even if they have no CodeSource
+	    final String moduleLocation = ModuleLocator.location(c);
+	    if (moduleLocation != null) return moduleLocation;
+
 	    // try the easy way first
 	    try {
 	        final URL codeSourceLocation =
 	            c.getProtectionDomain().getCodeSource().getLocation();
-	        if (codeSourceLocation != null && !codeSourceLocation.toExternalForm().startsWith("rsrc"))
-	        	return codeSourceLocation;
+	        if (codeSourceLocation != null) return codeSourceLocation.toExternalForm();
 	    }
 	    catch (SecurityException | NullPointerException e) {
 	    	if(isDebug()) e.printStackTrace();
@@ -342,80 +704,20 @@ public class JarPath {
 	    // leaving the base path.
 
 	    // get the class's raw resource path
-	    final URL classResource = c.getResource(c.getSimpleName() + ".class");
+	    final String suffix = c.getName().replace('.', '/') + ".class";
+	    final URL classResource = c.getResource("/" + suffix);
 	    if (classResource == null) {
 	    	if(isDebug()) System.out.println("[JarPath|debug] JarPath.getLocation : Cannot find class resource");
 	    	return null; // cannot find class resource
 	    }
 
 	    final String url = classResource.toString();
-	    final String suffix = c.getCanonicalName().replace('.', '/') + ".class";
 	    if (!url.endsWith(suffix)) {
 	    	if(isDebug()) System.out.println("[JarPath|debug] JarPath.getLocation : Weird URL");
 	    	return null; // weird URL
 	    }
 
-	    // strip the class's path from the URL string
-	    final String base = url.substring(0, url.length() - suffix.length());
-
-	    String path = base;
-
-	    // remove the "jar:" prefix and "!/" suffix, if present
-	    if (path.startsWith("jar:")) path = path.substring(4, path.length() - 2);
-
-	    try {
-	        return new URI(path).toURL();
-	    } catch (MalformedURLException | URISyntaxException e) {
-	    	if(isDebug()) e.printStackTrace();
-	        return null;
-	    }
-	} 
-
-	/**
-	 * Converts the given {@link URL} to its corresponding {@link File}.
-	 * <p>
-	 * This method is similar to calling {@code new File(url.toURI())} except that
-	 * it also handles "jar:file:" URLs, returning the path to the JAR file.
-	 * </p>
-	 * 
-	 * @param url The URL to convert.
-	 * @return A file path suitable for use with e.g. {@link FileInputStream}
-	 * @throws IllegalArgumentException if the URL does not correspond to a file.
-	 */
-	private static File urlToFile(final URL url) {
-	    return url == null ? null : urlToFile(url.toString());
-	}
-
-	private static final Pattern FILEURLPATTERN = Pattern.compile("file:[A-Za-z]:.*");
-	/**
-	 * Converts the given URL string to its corresponding {@link File}.
-	 * 
-	 * @param url The URL to convert.
-	 * @return A file path suitable for use with e.g. {@link FileInputStream}
-	 * @throws IllegalArgumentException if the URL does not correspond to a file.
-	 */
-	private static File urlToFile(final String url) {
-	    String path = url;
-	    if (path.startsWith("jar:")) {
-	        // remove "jar:" prefix and "!/" suffix
-	        final int index = path.indexOf("!/");
-	        path = path.substring(4, index);
-	    }
-	    try {
-	        if (System.getProperty("os.name").startsWith("Windows") && FILEURLPATTERN.matcher(path).matches()) {
-	            path = "file:/" + path.substring(5);
-	        }
-	        return new File(new URI(path));
-	    }
-	    catch (final URISyntaxException e) {
-	    	if(isDebug()) e.printStackTrace();
-	    }
-	    if (path.startsWith("file:")) {
-	        // pass through the URL as-is, minus "file:" prefix
-	        path = path.substring(5);
-	        return new File(path);
-	    }
-	    if(isDebug()) System.out.println("[JarPath|debug] Invalid url : " + url);
-	    return null;
+	    // strip the class's path from the URL string. "jar:" prefix and "!/" separators are parsed by ArchiveLocation
+	    return url.substring(0, url.length() - suffix.length());
 	}
 }
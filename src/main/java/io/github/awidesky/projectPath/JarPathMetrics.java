@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process counters of {@link JarPath}.<p>
+ * Disabled by default. When disabled, nothing is recorded and the cost is a single {@code volatile} read.
+ * Call {@link JarPathMetrics#snapshot()} to scrape the current values.
+ * <ul>
+ * <li>cache hits / misses of {@link JarPath#getProjectPath(Class, String)}</li>
+ * <li>number of resolutions, and how many of them fell back to the first candidate</li>
+ * <li>per-candidate evaluation count, failures, matches and latency histogram</li>
+ * </ul>
+ */
+public class JarPathMetrics {
+
+	/**
+	 * Upper bounds(inclusive, in microseconds) of the latency histogram buckets are
+	 * {@code 1, 2, 4, ... 2^(BUCKETS - 2)}. The last bucket counts everything slower.
+	 */
+	public static final int BUCKETS = 22;
+
+	private static volatile boolean enabled = false;
+
+	private static final LongAdder cacheHits = new LongAdder();
+	private static final LongAdder cacheMisses = new LongAdder();
+	private static final LongAdder resolutions = new LongAdder();
+	private static final LongAdder fallbacks = new LongAdder();
+	private static final ConcurrentHashMap<String, Recorder> candidates = new ConcurrentHashMap<>();
+
+	private JarPathMetrics() {}
+
+	/**
+	 * Returns {@code true} if metrics are recorded.
+	 * @return {@code true} if metrics are recorded.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Sets whether metrics are recorded. Default is {@code false}.<br>
+	 * Already recorded values are kept when disabled.
+	 *
+	 * @param enabled {@code true} to record metrics
+	 */
+	public static void setEnabled(boolean enabled) {
+		JarPathMetrics.enabled = enabled;
+	}
+
+	/**
+	 * Discards every recorded value.
+	 */
+	public static void reset() {
+		cacheHits.reset();
+		cacheMisses.reset();
+		resolutions.reset();
+		fallbacks.reset();
+		candidates.clear();
+	}
+
+	/**
+	 * Returns current values. The returned object does not change afterwards.
+	 * @return snapshot of current values
+	 */
+	public static Snapshot snapshot() {
+		Map<String, CandidateStats> stats = new LinkedHashMap<>();
+		candidates.forEach((name, r) -> stats.put(name, r.snapshot(name)));
+		return new Snapshot(cacheHits.sum(), cacheMisses.sum(), resolutions.sum(), fallbacks.sum(), stats);
+	}
+
+	static void cacheHit() {
+		if(enabled) cacheHits.increment();
+	}
+
+	static void cacheMiss() {
+		if(enabled) cacheMisses.increment();
+	}
+
+	static void resolved(boolean matched) {
+		if(!enabled) return;
+		resolutions.increment();
+		if(!matched) fallbacks.increment();
+	}
+
+	static void candidate(String name, long nanos, JarPath.Candidate candidate) {
+		if(!enabled) return;
+		candidates.computeIfAbsent(name, k -> new Recorder()).record(nanos, candidate.path == null, candidate.matched);
+	}
+
+	static int bucket(long nanos) {
+		long micros = nanos / 1000;
+		if(micros <= 1) return 0;
+		int ret = 64 - Long.numberOfLeadingZeros(micros - 1);
+		return Math.min(ret, BUCKETS - 1);
+	}
+
+	/** Mutable counters of a single candidate. */
+	private static class Recorder {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final LongAdder matches = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+		private Recorder() {
+			for(int i = 0; i < BUCKETS; i++) histogram[i] = new LongAdder();
+		}
+
+		private void record(long nanos, boolean failed, boolean matched) {
+			count.increment();
+			if(failed) failures.increment();
+			if(matched) matches.increment();
+			totalNanos.add(nanos);
+			histogram[bucket(nanos)].increment();
+		}
+
+		private CandidateStats snapshot(String name) {
+			long[] h = new long[BUCKETS];
+			for(int i = 0; i < BUCKETS; i++) h[i] = histogram[i].sum();
+			return new CandidateStats(name, count.sum(), failures.sum(), matches.sum(), totalNanos.sum(), h);
+		}
+	}
+
+	/**
+	 * Values of {@link JarPathMetrics} at a point of time.
+	 */
+	public static final class Snapshot {
+		private final long cacheHits;
+		private final long cacheMisses;
+		private final long resolutions;
+		private final long fallbacks;
+		private final Map<String, CandidateStats> candidates;
+
+		private Snapshot(long cacheHits, long cacheMisses, long resolutions, long fallbacks, Map<String, CandidateStats> candidates) {
+			this.cacheHits = cacheHits;
+			this.cacheMisses = cacheMisses;
+			this.resolutions = resolutions;
+			this.fallbacks = fallbacks;
+			this.candidates = Collections.unmodifiableMap(candidates);
+		}
+
+		/** @return number of calls answered from the cache */
+		public long getCacheHits() {
+			return cacheHits;
+		}
+
+		/** @return number of calls that had to resolve the path */
+		public long getCacheMisses() {
+			return cacheMisses;
+		}
+
+		/** @return number of candidate walks */
+		public long getResolutions() {
+			return resolutions;
+		}
+
+		/** @return number of candidate walks where no candidate matched */
+		public long getFallbacks() {
+			return fallbacks;
+		}
+
+		/** @return statistics of each candidate, keyed by the name of its approach */
+		public Map<String, CandidateStats> getCandidates() {
+			return candidates;
+		}
+
+		@Override
+		public String toString() {
+			return "JarPathMetrics [cacheHits=" + cacheHits + ", cacheMisses=" + cacheMisses + ", resolutions="
+					+ resolutions + ", fallbacks=" + fallbacks + ", candidates=" + candidates.values() + "]";
+		}
+	}
+
+	/**
+	 * Statistics of a single candidate approach.
+	 */
+	public static final class CandidateStats {
+		private final String name;
+		private final long count;
+		private final long failures;
+		private final long matches;
+		private final long totalNanos;
+		private final long[] histogram;
+
+		private CandidateStats(String name, long count, long failures, long matches, long totalNanos, long[] histogram) {
+			this.name = name;
+			this.count = count;
+			this.failures = failures;
+			this.matches = matches;
+			this.totalNanos = totalNanos;
+			this.histogram = histogram;
+		}
+
+		/** @return name of the approach */
+		public String getName() {
+			return name;
+		}
+
+		/** @return number of evaluations */
+		public long getCount() {
+			return count;
+		}
+
+		/** @return number of evaluations that failed to generate a path */
+		public long getFailures() {
+			return failures;
+		}
+
+		/** @return number of evaluations that matched */
+		public long getMatches() {
+			return matches;
+		}
+
+		/** @return sum of evaluation latencies, in nanoseconds */
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		/**
+		 * Returns the latency histogram. See {@link JarPathMetrics#BUCKETS} for the bucket bounds.
+		 * @return a copy of the latency histogram
+		 */
+		public long[] getHistogram() {
+			return histogram.clone();
+		}
+
+		@Override
+		public String toString() {
+			return name + " [count=" + count + ", failures=" + failures + ", matches=" + matches
+					+ ", avgNanos=" + (count == 0 ? 0 : totalNanos / count) + "]";
+		}
+	}
+}
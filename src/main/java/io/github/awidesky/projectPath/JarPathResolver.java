@@ -0,0 +1,729 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import io.github.awidesky.projectPath.CandidateProvider.Cost;
+import io.github.awidesky.projectPath.JarPath.Candidate;
+import io.github.awidesky.projectPath.JarPath.CandidateEntry;
+
+/**
+ * Resolves project paths with a fixed configuration.<p>
+ * Each instance owns its candidate order, cache and diagnostics(debug output),
+ * so that subsystems that need different settings in the same JVM do not interfere with each other.
+ * The configuration never changes after {@link Builder#build()}, and the cache is lock-free on hits,
+ * so an instance can be shared across threads without any locking.<p>
+ *
+ * Static methods of {@link JarPath} use a default instance({@link JarPath#getDefaultResolver()}).
+ *
+ * <pre>
+ * JarPathResolver resolver = JarPathResolver.builder().classPathSearchFirst(true).build();
+ * String projectPath = resolver.getProjectPath(Main.class);
+ * </pre>
+ */
+public final class JarPathResolver {
+
+	private final boolean classPathSearchFirst;
+	private final boolean parallelProbing;
+	private final boolean debug;
+	private final List<CandidateProvider> providers;
+	private volatile Candidate lastResolved = null;
+	private volatile ClassValue<AtomicReference<LocationCache>> cache = newCache();
+
+	private JarPathResolver(Builder builder) {
+		this.classPathSearchFirst = builder.classPathSearchFirst;
+		this.parallelProbing = builder.parallelProbing;
+		this.debug = builder.debug;
+		List<CandidateProvider> providers = new ArrayList<>();
+		if(builder.serviceProviders) providers.addAll(ServiceProviders.get(debug));
+		providers.addAll(builder.providers);
+		this.providers = List.copyOf(providers);
+	}
+
+	/**
+	 * Returns a new builder with default settings.
+	 * @return a new builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Returns a new builder with the settings of this resolver. The cache is not shared.
+	 * @return a new builder
+	 */
+	public Builder toBuilder() {
+		Builder ret = new Builder().classPathSearchFirst(classPathSearchFirst).parallelProbing(parallelProbing).debug(debug)
+				.serviceProviders(false);
+		providers.forEach(ret::addProvider);
+		return ret;
+	}
+
+	/** @return {@code true} if "class file path approach" is tried before "working directory approach" */
+	public boolean isClassPathSearchFirst() {
+		return classPathSearchFirst;
+	}
+
+	/** @return {@code true} if the candidates are probed concurrently */
+	public boolean isParallelProbing() {
+		return parallelProbing;
+	}
+
+	/** @return {@code true} if the reason of each failed candidate is printed */
+	public boolean isDebug() {
+		return debug;
+	}
+
+	/** @return unmodifiable list of additional candidate providers, including the ones found by {@code ServiceLoader} */
+	public List<CandidateProvider> getProviders() {
+		return providers;
+	}
+
+	/**
+	 * Returns a resolver with given debug mode, which shares the cache of this resolver.
+	 * Cached paths do not depend on debug mode, so resolutions in flight(e.g. {@link JarPathResolver#getProjectDirectoryAsync(Class)})
+	 * are still joined by the returned resolver.
+	 *
+	 * @param debug new debug mode
+	 * @return a resolver with same settings except debug mode
+	 */
+	JarPathResolver withDebug(boolean debug) {
+		JarPathResolver ret = toBuilder().debug(debug).build();
+		ret.cache = cache;
+		ret.lastResolved = lastResolved;
+		return ret;
+	}
+
+	/**
+	 * Discards every cached path of this resolver.
+	 * Resolutions in flight(e.g. {@link JarPathResolver#getProjectDirectoryAsync(Class)}) still complete,
+	 * but their results are not cached anymore.
+	 * @see JarPath#clearCache()
+	 */
+	public void clearCache() {
+		cache = newCache();
+		lastResolved = null;
+	}
+
+	/**
+	 * Discards cached paths of given class, and of every class from the same location.
+	 *
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @see JarPath#clearCache(Class)
+	 */
+	public void clearCache(Class<?> c) {
+		cache.get(c).get().paths.clear();
+		lastResolved = null;
+	}
+
+	/**
+	 * @return the last value returned by this resolver, or project path of {@code JarPath.class} if none
+	 * @see JarPath#getProjectPath()
+	 */
+	public String getProjectPath() {
+		return lastResolved().path;
+	}
+
+	/**
+	 * @return the last value returned by this resolver, or project directory of {@code JarPath.class} if none
+	 * @see JarPath#getProjectDirectory()
+	 */
+	public Path getProjectDirectory() {
+		return lastResolved().dir;
+	}
+
+	/**
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return a path to the directory of .jar file (or project) that contains given class
+	 * @see JarPath#getProjectPath(Class)
+	 */
+	public String getProjectPath(Class<?> c) {
+		LocationCache cached = cache.get(c).get();
+		return (lastResolved = cached.projectPath(this, c, cached.jarName)).path;
+	}
+
+	/**
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return a path to the directory of .jar file (or project) that contains given class
+	 * @see JarPath#getProjectDirectory(Class)
+	 */
+	public Path getProjectDirectory(Class<?> c) {
+		LocationCache cached = cache.get(c).get();
+		return (lastResolved = cached.projectPath(this, c, cached.jarName)).dir;
+	}
+
+	/**
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @param file a file that has to exist in desired directory
+	 * @return a path to the directory of .jar file (or project) that contains this class
+	 * @see JarPath#getProjectPath(Class, String)
+	 */
+	public String getProjectPath(Class<?> c, String file) {
+		return (lastResolved = cache.get(c).get().projectPath(this, c, file)).path;
+	}
+
+	/**
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @param file a file that has to exist in desired directory
+	 * @return a path to the directory of .jar file (or project) that contains this class
+	 * @see JarPath#getProjectDirectory(Class, String)
+	 */
+	public Path getProjectDirectory(Class<?> c, String file) {
+		return (lastResolved = cache.get(c).get().projectPath(this, c, file)).dir;
+	}
+
+	/**
+	 * Starts resolving the project directory of given class on a daemon thread.<br>
+	 * Synchronous calls with the class made before it completes wait for the in-flight resolution,
+	 * instead of starting another one, and later calls return the cached value.<br>
+	 * Unlike {@link JarPathResolver#getProjectPath(Class)}, this does not change the value of {@link JarPathResolver#getProjectPath()}.<br>
+	 * The result is stored in the cache of the time of this call. If {@link JarPathResolver#clearCache()} is called
+	 * before it completes, later calls resolve again.
+	 *
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return a future of {@link JarPathResolver#getProjectDirectory(Class)}
+	 */
+	public CompletableFuture<Path> getProjectDirectoryAsync(Class<?> c) {
+		return prefetch(c).thenApply(candidate -> candidate.dir);
+	}
+
+	/**
+	 * Same as {@link JarPathResolver#getProjectDirectoryAsync(Class)}, but completes with a {@code String}.
+	 *
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return a future of {@link JarPathResolver#getProjectPath(Class)}
+	 */
+	public CompletableFuture<String> getProjectPathAsync(Class<?> c) {
+		return prefetch(c).thenApply(candidate -> candidate.path);
+	}
+
+	private CompletableFuture<Candidate> prefetch(Class<?> c) {
+		ClassValue<AtomicReference<LocationCache>> cache = this.cache;
+		return PrefetchExecutor.supply(() -> {
+			LocationCache cached = cache.get(c).get();
+			return cached.projectPath(this, c, cached.jarName);
+		});
+	}
+
+	/**
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return the name of .jar file, or {@code null}
+	 * @see JarPath#getJarName(Class)
+	 */
+	public String getJarName(Class<?> c) {
+		return cache.get(c).get().jarName;
+	}
+
+	/**
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return absolute path of the .jar file, or {@code null}
+	 * @see JarPath#getJarFile(Class)
+	 */
+	public Path getJarFile(Class<?> c) {
+		return cache.get(c).get().jarFile;
+	}
+
+	/**
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return the location of the class, or {@code null} if unknown
+	 * @see JarPath#getArchiveLocation(Class)
+	 */
+	public ArchiveLocation getArchiveLocation(Class<?> c) {
+		return cache.get(c).get().archive;
+	}
+
+	/**
+	 * @param classes classes whose .class file resides inside of .jar files
+	 * @return a {@code Map} from each class to the name of .jar file(or {@code null}), in iteration order of {@code classes}
+	 * @see JarPath#getJarNames(Collection)
+	 */
+	public Map<Class<?>, String> getJarNames(Collection<? extends Class<?>> classes) {
+		Map<Class<?>, String> ret = new LinkedHashMap<>();
+		ClassValue<AtomicReference<LocationCache>> cache = this.cache;
+		for(Class<?> c : classes) ret.put(c, cache.get(c).get().jarName);
+		return ret;
+	}
+
+	/**
+	 * @param classes classes whose .class file resides inside of .jar files(or projects)
+	 * @param parallel if {@code true}, distinct locations are resolved concurrently
+	 * @return a {@code Map} from each class to its project path, in iteration order of {@code classes}
+	 * @see JarPath#getProjectPaths(Collection, boolean)
+	 */
+	public Map<Class<?>, String> getProjectPaths(Collection<? extends Class<?>> classes, boolean parallel) {
+		ClassValue<AtomicReference<LocationCache>> cache = this.cache;
+		Map<LocationCache, Class<?>> distinct = new IdentityHashMap<>();
+		for(Class<?> c : classes) distinct.putIfAbsent(cache.get(c).get(), c);
+
+		Stream<Map.Entry<LocationCache, Class<?>>> stream = distinct.entrySet().stream();
+		if(parallel) stream = stream.parallel();
+		stream.forEach(e -> e.getKey().projectPath(this, e.getValue(), e.getKey().jarName));
+
+		Map<Class<?>, String> ret = new LinkedHashMap<>();
+		for(Class<?> c : classes) {
+			LocationCache cached = cache.get(c).get();
+			ret.put(c, cached.projectPath(this, c, cached.jarName).path);
+		}
+		return ret;
+	}
+
+	/**
+	 * Get list of candidates used to find jar path, in the order of this resolver.
+	 * Built-in candidates and the candidates of {@link JarPathResolver#getProviders()} are sorted by priority.
+	 *
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return list of candidates
+	 * @see JarPath#getCandidates(Class)
+	 */
+	public List<CandidateEntry> getCandidates(Class<?> c) {
+		return JarPath.candidates(c, classPathSearchFirst, providers);
+	}
+
+	@Override
+	public String toString() {
+		return "JarPathResolver [classPathSearchFirst=" + classPathSearchFirst + ", parallelProbing=" + parallelProbing
+				+ ", debug=" + debug + ", providers=" + providers.size() + "]";
+	}
+
+	private Candidate lastResolved() {
+		Candidate ret = lastResolved;
+		if(ret != null) return ret;
+		LocationCache cached = cache.get(JarPath.class).get();
+		return (lastResolved = cached.projectPath(this, JarPath.class, cached.jarName));
+	}
+
+	/**
+	 * Stores an already known project directory of given class, as if {@link JarPathResolver#getProjectPath(Class)} resolved it.
+	 * Does nothing if it's resolved already.
+	 */
+	void seed(Class<?> c, Path dir) {
+		LocationCache cached = cache.get(c).get();
+		lastResolved = cached.seed(cached.jarName, known(dir));
+	}
+
+	/**
+	 * Replaces every cached value of the location of given class at once, after the location is moved or renamed.
+	 * The {@code CodeSource} of the class still points the old location, so resolving again cannot find the new one.<br>
+	 * Classes from the same location see either the old values or the new ones, never a mix of them,
+	 * and a resolution of the old location that completes afterwards does not overwrite the new values.
+	 * The new project directory is tried first when a path with another probe file is resolved.
+	 *
+	 * @param c a class whose location is moved
+	 * @param file new location of the class : the .jar file(the outermost one, if nested), or the class directory
+	 * @param dir new project directory
+	 * @see ProjectPathWatcher
+	 */
+	void relocate(Class<?> c, Path file, Path dir) {
+		AtomicReference<LocationCache> cached = cache.get(c);
+		ArchiveLocation archive = cached.get().archive;
+		cached.set(archive == null ? new LocationCache(null, JarPath.jarFileOrNull(file), dir) : new LocationCache(archive.relocate(file), dir));
+		lastResolved = null;
+	}
+
+	/** @return a matched candidate of given directory, which is already known to be the project directory */
+	private static Candidate known(Path dir) {
+		Candidate ret = new Candidate(dir, true);
+		ret.matched = true;
+		return ret;
+	}
+
+	/**
+	 * Every candidate depends on the class only through its location,
+	 * so classes from the same location share a single {@code LocationCache}.
+	 * It's replaced as a whole when the location is moved({@link JarPathResolver#relocate(Class, Path, Path)}).<br>
+	 * Static, so that cached values never reference the resolver(a {@code ClassValue} whose values
+	 * reference it would never be collected).
+	 */
+	private static ClassValue<AtomicReference<LocationCache>> newCache() {
+		ConcurrentHashMap<String, AtomicReference<LocationCache>> locations = new ConcurrentHashMap<>();
+		return new ClassValue<>() {
+			@Override
+			protected AtomicReference<LocationCache> computeValue(Class<?> type) {
+				String location = JarPath.getLocation(type);
+				AtomicReference<LocationCache> ret = location == null ? null : locations.get(location);
+				if(ret != null) return ret;
+				/* each location is parsed once, not once per class */
+				ArchiveLocation archive = ArchiveLocation.of(location);
+				if(archive == null) return new AtomicReference<>(new LocationCache(null, JarPath.classPathJarFile(type), null));
+				return locations.computeIfAbsent(location, k -> new AtomicReference<>(new LocationCache(archive)));
+			}
+		};
+	}
+
+	/**
+	 * Cached results of a single class location.
+	 * Only {@code String}s and {@code Path}s are stored, so no {@code Class} is ever referenced.
+	 * Each result keeps both forms, so that neither {@code String} nor {@code Path} API converts on a hit.
+	 */
+	private static class LocationCache {
+		private final ArchiveLocation archive;
+		private final Path jarFile;
+		private final String jarName;
+		/** The project directory the location is moved to, or {@code null} if the location is where the {@code CodeSource} points. */
+		private final Path relocated;
+		private final ConcurrentHashMap<String, Candidate> paths = new ConcurrentHashMap<>(4);
+		/** Project path resolved without a file. Not in {@code paths}, since {@code ConcurrentHashMap} does not allow a {@code null} key. */
+		private volatile Candidate noFile = null;
+
+		private LocationCache(ArchiveLocation archive) {
+			this(archive, null);
+		}
+
+		private LocationCache(ArchiveLocation archive, Path relocated) {
+			this(archive, archive.isNested() ? archive.getFile() : JarPath.jarFileOrNull(archive.getFile()), relocated);
+		}
+
+		private LocationCache(ArchiveLocation archive, Path jarFile, Path relocated) {
+			this.archive = archive;
+			this.jarFile = jarFile;
+			this.jarName = jarFile == null ? null : jarFile.getFileName().toString();
+			this.relocated = relocated;
+			if(relocated != null) seed(jarName, known(relocated));
+		}
+
+		private Candidate projectPath(JarPathResolver resolver, Class<?> c, String file) {
+			Candidate ret = file == null ? noFile : paths.get(file);
+			if(ret != null) {
+				JarPathMetrics.cacheHit();
+				return ret;
+			}
+			if(file != null) return paths.computeIfAbsent(file, k -> generate(resolver, c, file));
+			synchronized (this) {
+				if(noFile == null) noFile = generate(resolver, c, null);
+				return noFile;
+			}
+		}
+
+		private Candidate generate(JarPathResolver resolver, Class<?> c, String file) {
+			JarPathMetrics.cacheMiss();
+			if(relocated != null && (file == null || JarPath.readAttributes(relocated.resolve(file)) != null)) return known(relocated);
+			return resolver.generateProjectPath(c, file);
+		}
+
+		private Candidate seed(String file, Candidate candidate) {
+			if(file != null) {
+				Candidate ret = paths.putIfAbsent(file, candidate);
+				return ret == null ? candidate : ret;
+			}
+			synchronized (this) {
+				if(noFile == null) noFile = candidate;
+				return noFile;
+			}
+		}
+	}
+
+	private Candidate generateProjectPath(Class<?> c, String file) {
+		ResolutionEvent event = new ResolutionEvent();
+		event.begin();
+		Candidate ret = resolve(getCandidates(c), file);
+		event.end();
+		if(event.shouldCommit()) {
+			event.className = c.getName();
+			event.file = file;
+			event.result = ret.path;
+			event.matched = ret.matched;
+			event.commit();
+		}
+		return ret;
+	}
+
+	Candidate resolve(List<CandidateEntry> list, String file) {
+		Candidate ret = parallelProbing && list.size() > 1 ? resolveParallel(list, file) : resolveSequential(list, file);
+		JarPathMetrics.resolved(ret.matched);
+		return ret;
+	}
+
+	/**
+	 * Evaluates each candidate at most once, in the order of the list. Within a priority band({@link JarPathResolver#band(int)}),
+	 * cheaper candidates(by {@link CandidateEntry#getCost()}) are evaluated first.
+	 * Stops when the first(in the order of the list) matching candidate is conclusive,
+	 * which means every candidate before it is evaluated and did not match.<br>
+	 * The generated paths are kept for the fallback, so that a miss does not
+	 * run the candidates again.
+	 */
+	private Candidate resolveSequential(List<CandidateEntry> list, String file) {
+		Candidate[] generated = new Candidate[list.size()];
+		int conclusive = 0; //every candidate before this is evaluated and did not match
+		for(int i : evaluationOrder(list)) {
+			generated[i] = probe(list.get(i), file);
+			while(conclusive < generated.length && generated[conclusive] != null) {
+				if(generated[conclusive].matched) return generated[conclusive];
+				conclusive++;
+			}
+		}
+		return fallback(generated);
+	}
+	
+	/**
+	 * Indexes of the list, sorted by cost within each priority band. Bands keep their order, and so do candidates of same cost.
+	 * Cost never moves a candidate before a candidate of a lower band, so an expensive candidate
+	 * (e.g. {@code java.class.path}, which builds the {@link ClassPathIndex}) is not evaluated
+	 * while a candidate of a lower band may still match.
+	 */
+	private static int[] evaluationOrder(List<CandidateEntry> list) {
+		int[] ret = new int[list.size()];
+		int n = 0;
+		for(int start = 0, end; start < ret.length; start = end) {
+			int band = band(list.get(start).getPriority());
+			for(end = start + 1; end < ret.length && band(list.get(end).getPriority()) == band; end++);
+			for(Cost cost : Cost.values()) {
+				for(int i = start; i < end; i++) {
+					if(list.get(i).getCost() == cost) ret[n++] = i;
+				}
+			}
+		}
+		return ret;
+	}
+	
+	/**
+	 * Priority band of given priority : candidates whose priorities have the same hundreds(e.g. {@code 100 ~ 199}).
+	 * @see CandidateProvider
+	 */
+	private static int band(int priority) {
+		return Math.floorDiv(priority, 100);
+	}
+
+	/**
+	 * Evaluates all candidates concurrently, and waits for them in priority order.
+	 * Once a candidate matches, probes of every lower priority candidate that are not started yet are cancelled.<br>
+	 * Running probes are not interrupted, as an interrupt closes any channel they are reading
+	 * (e.g. while building {@link ClassPathIndex#getDefault()}). They finish in the background, and the results are ignored.
+	 */
+	private Candidate resolveParallel(List<CandidateEntry> list, String file) {
+		List<Future<Candidate>> probes = new ArrayList<>(list.size());
+		for(CandidateEntry entry : list) {
+			probes.add(ProbeExecutor.POOL.submit(() -> probe(entry, file)));
+		}
+
+		Candidate[] generated = new Candidate[list.size()];
+		try {
+			for(int i = 0; i < generated.length; i++) {
+				Candidate candidate = probes.get(i).get();
+				generated[i] = candidate;
+				if(candidate.matched) {
+					for(int j = i + 1; j < generated.length; j++) probes.get(j).cancel(false);
+					return candidate;
+				}
+			}
+		} catch (InterruptedException e) {
+			probes.forEach(f -> f.cancel(false));
+			Thread.currentThread().interrupt();
+			if(debug) e.printStackTrace();
+		} catch (ExecutionException e) { //probe() does not throw, so normally won't happen
+			if(debug) e.printStackTrace();
+		}
+		return fallback(generated);
+	}
+
+	/**
+	 * Evaluates the candidate and checks if it matches.
+	 * Emits a {@link CandidateEvaluationEvent}, and records the latency to {@link JarPathMetrics} if enabled.
+	 */
+	private Candidate probe(CandidateEntry entry, String file) {
+		boolean timed = JarPathMetrics.isEnabled();
+		long start = timed ? System.nanoTime() : 0L;
+		CandidateEvaluationEvent event = new CandidateEvaluationEvent();
+		event.begin();
+
+		Candidate candidate = entry.evaluate(debug);
+		if(candidate.path != null) candidate.matched = matches(candidate, file);
+
+		event.end();
+		if(timed) JarPathMetrics.candidate(entry.name, System.nanoTime() - start, candidate);
+		if(event.shouldCommit()) {
+			event.description = entry.getDescription();
+			event.path = candidate.path;
+			event.matched = candidate.matched;
+			event.failure = candidate.failure;
+			event.commit();
+		}
+		return candidate;
+	}
+
+	/**
+	 * Checks if the candidate is an existing directory, and given file(if not {@code null}) exists in it.
+	 */
+	private static boolean matches(Candidate candidate, String file) {
+		if(!candidate.exists && JarPath.readAttributes(candidate.dir) == null) return false;
+		return file == null || JarPath.readAttributes(candidate.dir.resolve(file)) != null;
+	}
+
+	private Candidate fallback(Candidate[] generated) {
+		if(debug) System.out.println("[JarPath|debug] Unable to find. just return the first non-null thing or empty String");
+		for(Candidate candidate : generated) { //unable to find. just return the first non-null thing
+			if(candidate != null && candidate.path != null) return candidate;
+		}
+		return Candidate.EMPTY;
+	}
+
+	/**
+	 * Providers found by {@code ServiceLoader}, loaded once when a resolver first needs them.
+	 * Never calls back into {@link JarPath}, since the default resolver is built while {@code JarPath} is initialized.
+	 */
+	private static class ServiceProviders {
+		private static volatile List<CandidateProvider> loaded = null;
+		
+		/** Loaded providers of the class loader of {@code JarPathResolver}. Racy, but the result is the same. */
+		private static List<CandidateProvider> get(boolean debug) {
+			List<CandidateProvider> ret = loaded;
+			if(ret == null) loaded = ret = load(JarPathResolver.class.getClassLoader(), debug);
+			return ret;
+		}
+		
+		/**
+		 * Loads providers of given class loader. Broken entries(e.g. a missing class in a {@code META-INF/services} file)
+		 * are skipped, and the rest are still loaded.
+		 */
+		private static List<CandidateProvider> load(ClassLoader loader, boolean debug) {
+			List<CandidateProvider> ret = new ArrayList<>();
+			Iterator<CandidateProvider> it = ServiceLoader.load(CandidateProvider.class, loader).iterator();
+			while(true) {
+				try {
+					if(!it.hasNext()) break;
+					ret.add(it.next());
+				} catch (ServiceConfigurationError e) {
+					if(debug) e.printStackTrace();
+				}
+			}
+			return List.copyOf(ret);
+		}
+	}
+
+	/**
+	 * Lazily created thread pool for parallel probing, shared by every resolver.
+	 * Threads are daemon, and die after being idle for a while.
+	 */
+	private static class ProbeExecutor {
+		private static final int THREADS = 8;
+		private static final AtomicInteger threadNum = new AtomicInteger();
+		private static final ThreadPoolExecutor POOL = new ThreadPoolExecutor(THREADS, THREADS,
+				10L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+					Thread t = new Thread(r, "JarPath-probe-" + threadNum.getAndIncrement());
+					t.setDaemon(true);
+					return t;
+				});
+		static {
+			POOL.allowCoreThreadTimeOut(true);
+		}
+	}
+
+	/**
+	 * Builds a {@link JarPathResolver}. Not thread-safe; the built resolver is.
+	 */
+	public static final class Builder {
+		private boolean classPathSearchFirst = false;
+		private boolean parallelProbing = false;
+		private boolean debug = false;
+		private boolean serviceProviders = true;
+		private final List<CandidateProvider> providers = new ArrayList<>();
+
+		private Builder() {}
+
+		/**
+		 * Adds a candidate provider.
+		 *
+		 * @param provider the provider to add
+		 * @return this builder
+		 */
+		public Builder addProvider(CandidateProvider provider) {
+			providers.add(Objects.requireNonNull(provider));
+			return this;
+		}
+
+		/**
+		 * Adds every candidate provider found by {@code ServiceLoader} in given class loader.
+		 * Providers that cannot be loaded are skipped(and printed if {@link Builder#debug(boolean)} is set before).
+		 *
+		 * @param loader the class loader to search
+		 * @return this builder
+		 */
+		public Builder loadProviders(ClassLoader loader) {
+			providers.addAll(ServiceProviders.load(loader, debug));
+			return this;
+		}
+
+		/**
+		 * Sets whether the candidate providers found by {@code ServiceLoader} in the class loader of
+		 * {@code JarPathResolver} are used. Default is {@code true}.
+		 *
+		 * @param serviceProviders {@code false} to use built-in candidates and added providers only
+		 * @return this builder
+		 */
+		public Builder serviceProviders(boolean serviceProviders) {
+			this.serviceProviders = serviceProviders;
+			return this;
+		}
+
+		/**
+		 * Sets whether "class file path approach" is tried before "working directory approach" or not.
+		 * Default is {@code false}.
+		 *
+		 * @param classPathSearchFirst {@code true} to try "class file path approach" first
+		 * @return this builder
+		 * @see JarPath#setClassPathSearchFirst(boolean)
+		 */
+		public Builder classPathSearchFirst(boolean classPathSearchFirst) {
+			this.classPathSearchFirst = classPathSearchFirst;
+			return this;
+		}
+
+		/**
+		 * Sets whether the candidates are probed concurrently or one after another. Default is {@code false}.
+		 *
+		 * @param parallelProbing {@code true} to probe concurrently
+		 * @return this builder
+		 * @see JarPath#setParallelProbing(boolean)
+		 */
+		public Builder parallelProbing(boolean parallelProbing) {
+			this.parallelProbing = parallelProbing;
+			return this;
+		}
+
+		/**
+		 * Sets whether the reason of each failed candidate is printed to {@code System.out}. Default is {@code false}.
+		 *
+		 * @param debug {@code true} to print
+		 * @return this builder
+		 * @see JarPath#setDebug(boolean)
+		 */
+		public Builder debug(boolean debug) {
+			this.debug = debug;
+			return this;
+		}
+
+		/**
+		 * @return a new resolver with an empty cache
+		 */
+		public JarPathResolver build() {
+			return new JarPathResolver(this);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decodes {@code file:} URLs of {@code CodeSource} locations to {@code Path}s, in a single pass without {@code URI}.<p>
+ * Handles :
+ * <ul>
+ * <li>{@code file:/path}, {@code file:///path}, {@code file://localhost/path}</li>
+ * <li>drive letters : {@code file:/C:/path}, {@code file:C:/path}, {@code file:///C:/path}</li>
+ * <li>UNC paths(Windows only) : {@code file://server/share/path}, {@code file:////server/share/path}</li>
+ * <li>{@code jar:file:/path/app.jar!/...} : the {@code jar:} prefix and everything after the first {@code !/} are removed</li>
+ * <li>percent-encoded UTF-8. {@code +} is a plus sign, not a space. Invalid escapes(e.g. from a legacy {@code File.toURL()}) are kept as is.</li>
+ * </ul>
+ * Decoded paths are memoized per URL, so each location is decoded once per JVM.
+ */
+final class LocationDecoder {
+
+	private static final boolean WINDOWS = File.separatorChar == '\\';
+	/** Max number of memoized URLs. Beyond that, URLs are decoded without memoizing. */
+	private static final int MAX_CACHED = 4096;
+	private static final ConcurrentHashMap<String, Path> cache = new ConcurrentHashMap<>();
+
+	private LocationDecoder() {}
+
+	/**
+	 * @param url a {@code file:} URL, possibly wrapped in {@code jar:}
+	 * @return absolute path of the file, or {@code null} if the URL is not a local file URL
+	 */
+	static Path toPath(String url) {
+		Path ret = cache.get(url);
+		if(ret != null) return ret;
+		String path = decodePath(url, WINDOWS);
+		if(path == null) {
+			if(JarPath.isDebug()) System.out.println("[JarPath|debug] Invalid url : " + url);
+			return null;
+		}
+		try {
+			ret = Paths.get(path).toAbsolutePath();
+		} catch (InvalidPathException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+			return null;
+		}
+		if(cache.size() < MAX_CACHED) cache.putIfAbsent(url, ret);
+		return ret;
+	}
+
+	/**
+	 * Decodes the path part of given URL.
+	 *
+	 * @param url a {@code file:} URL, possibly wrapped in {@code jar:}
+	 * @param windows whether to decode drive letters and UNC paths
+	 * @return the decoded path, or {@code null} if the URL is not a local file URL
+	 */
+	static String decodePath(String url, boolean windows) {
+		int start = 0;
+		while(url.startsWith("jar:", start)) start += 4;
+		if(!url.regionMatches(true, start, "file:", 0, 5)) return null;
+		start += 5;
+		int end = url.indexOf("!/", start);
+		if(end < 0) end = url.length();
+
+		if(url.startsWith("//", start)) {
+			int slash = url.indexOf('/', start + 2);
+			if(slash < 0 || slash > end) slash = end;
+			String authority = url.substring(start + 2, slash);
+			if(!authority.isEmpty() && !authority.equalsIgnoreCase("localhost")) {
+				/* file://server/share/path */
+				return windows ? "\\\\" + authority + decode(url, slash, end).replace('/', '\\') : null;
+			}
+			start = slash;
+		}
+
+		String path = decode(url, start, end);
+		if(!windows) return path;
+		if(path.startsWith("//")) return path.replace('/', '\\'); // file:////server/share/path
+		if(path.length() >= 3 && path.charAt(0) == '/' && path.charAt(2) == ':' && Character.isLetter(path.charAt(1))) {
+			return path.substring(1); // file:/C:/path
+		}
+		return path;
+	}
+
+	/**
+	 * Decodes percent-encoded UTF-8.
+	 *
+	 * @param s the string to decode
+	 * @return the decoded string, or {@code s} itself if it has no escape
+	 */
+	static String decode(String s) {
+		return decode(s, 0, s.length());
+	}
+
+	private static String decode(String s, int start, int end) {
+		int percent = s.indexOf('%', start);
+		if(percent < 0 || percent >= end) return s.substring(start, end);
+
+		StringBuilder sb = new StringBuilder(end - start);
+		sb.append(s, start, percent);
+		byte[] bytes = null;
+		int i = percent;
+		while(i < end) {
+			char c = s.charAt(i);
+			if(c != '%' || !isEscape(s, i, end)) {
+				sb.append(c);
+				i++;
+				continue;
+			}
+			/* a run of escapes is decoded together, since a character may span several bytes */
+			if(bytes == null) bytes = new byte[(end - i) / 3];
+			int n = 0;
+			while(i < end && s.charAt(i) == '%' && isEscape(s, i, end)) {
+				bytes[n++] = (byte) ((Character.digit(s.charAt(i + 1), 16) << 4) | Character.digit(s.charAt(i + 2), 16));
+				i += 3;
+			}
+			sb.append(new String(bytes, 0, n, StandardCharsets.UTF_8));
+		}
+		return sb.toString();
+	}
+
+	private static boolean isEscape(String s, int i, int end) {
+		return i + 2 < end && Character.digit(s.charAt(i + 1), 16) >= 0 && Character.digit(s.charAt(i + 2), 16) >= 0;
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.lang.module.ResolvedModule;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+
+/**
+ * Finds the location of named modules from their {@code ModuleReference}, e.g. {@code file:/path/mods/x.jar},
+ * {@code file:/path/mods/x/}(exploded module), or {@code jrt:/x}(a module linked into the runtime image).<p>
+ * Works for modules of every {@code ModuleLayer}, including classes whose {@code CodeSource} is {@code null}
+ * (e.g. classes of the runtime image loaded by the boot loader).
+ * Results are cached per module. Modules are weakly referenced, so that a discarded layer can be collected.
+ */
+final class ModuleLocator {
+
+	private static final Map<Module, Optional<String>> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private ModuleLocator() {}
+
+	/**
+	 * @param c a class
+	 * @return location URL of the named module of the class, or {@code null} if the class is in an unnamed module,
+	 * or the location of the module is unknown
+	 */
+	static String location(Class<?> c) {
+		Module m = c.getModule();
+		if(!m.isNamed()) return null;
+		Optional<String> ret = cache.get(m);
+		if(ret == null) {
+			ret = compute(m);
+			cache.put(m, ret);
+		}
+		return ret.orElse(null);
+	}
+
+	private static Optional<String> compute(Module m) {
+		ModuleLayer layer = m.getLayer();
+		if(layer == null) return Optional.empty(); // defined without a layer, so there's no module reference
+		Optional<String> ret = layer.configuration().findModule(m.getName())
+				.map(ResolvedModule::reference).flatMap(r -> r.location()).map(URI::toString);
+		if(JarPath.isDebug() && ret.isEmpty()) System.out.println("[JarPath|debug] Location of module " + m.getName() + " is unknown");
+		return ret;
+	}
+}
@@ -1,31 +1,101 @@
 package io.github.awidesky.projectPath;
 
 import java.io.File;
+import java.util.Arrays;
 
 /***
  * Indicate the type of current OS.
  * The local application data directory can be obtained by calling {@code OS#appLocalRoot()},
- * but prefer using {@code UserDataPath#appLocalFolder()}.
+ * but prefer using {@code UserDataPath#appLocalFolder()}.<p>
+ *
+ * The directory of each OS is computed when it's first asked, not when {@code OS} is loaded.
+ * So only the current OS pays for it.
  */
 public enum OS {
-	WINDOWS(System.getenv("LOCALAPPDATA")),
-	MACOS(System.getProperty("user.home") + "/Library/Application Support".replace('/', File.separatorChar)),
-	LINUX(System.getProperty("user.home") + "/.local/share".replace('/', File.separatorChar));
-	
+	WINDOWS {
+		@Override
+		String computeRoot(BaseDirectory dir) {
+			switch (dir) {
+			case CONFIG: return System.getenv("APPDATA");
+			case RUNTIME: return System.getProperty("java.io.tmpdir");
+			default: return System.getenv("LOCALAPPDATA");
+			}
+		}
+	},
+	MACOS {
+		@Override
+		String computeRoot(BaseDirectory dir) {
+			switch (dir) {
+			case CACHE: return home("Library", "Caches");
+			case RUNTIME: return System.getProperty("java.io.tmpdir");
+			default: return home("Library", "Application Support");
+			}
+		}
+	},
+	LINUX {
+		@Override
+		String computeRoot(BaseDirectory dir) {
+			switch (dir) {
+			case CONFIG: return xdg("XDG_CONFIG_HOME", ".config");
+			case CACHE: return xdg("XDG_CACHE_HOME", ".cache");
+			case STATE: return xdg("XDG_STATE_HOME", ".local", "state");
+			case RUNTIME:
+				String runtime = xdg("XDG_RUNTIME_DIR");
+				return runtime != null ? runtime : System.getProperty("java.io.tmpdir");
+			default: return xdg("XDG_DATA_HOME", ".local", "share");
+			}
+		}
+	};
+
 	public static final OS CURRUNTOS = findOS();
-	
-	private String appLocalRoot;
-	OS(String appLocalRoot) {
-		this.appLocalRoot = appLocalRoot;
-	}
+
+	/**
+	 * Computed directories, indexed by {@code BaseDirectory#ordinal()}. An element is {@code null} until computed.
+	 * Racy writes are fine : {@code Root} is immutable, and every thread computes the same value.
+	 */
+	private final Root[] roots = new Root[BaseDirectory.values().length];
 
 	/***
 	 * Returns the local application data directory.<p>
-	 * This method returns same value with {@code OS#appLocalRoot()}
-	 * method without any arguments.
+	 * Same as {@code root(BaseDirectory.DATA)}.
 	 */
 	public String appLocalRoot() {
-		return appLocalRoot;
+		return root(BaseDirectory.DATA);
+	}
+
+	/**
+	 * Returns the base directory of given kind in this OS.
+	 *
+	 * @param dir kind of the directory
+	 * @return the directory, or {@code null} if unknown(e.g. the environment variable is not set)
+	 */
+	public String root(BaseDirectory dir) {
+		Root ret = roots[dir.ordinal()];
+		if(ret == null) roots[dir.ordinal()] = ret = new Root(computeRoot(dir));
+		return ret.value;
+	}
+
+	abstract String computeRoot(BaseDirectory dir);
+
+	/**
+	 * Discards computed directories, so that next {@link OS#root(BaseDirectory)} reads the environment again.
+	 * @see UserDataPath#refresh()
+	 */
+	static void refresh() {
+		for(OS os : values()) Arrays.fill(os.roots, null);
+	}
+
+	private static String home(String... subFolders) {
+		StringBuilder sb = new StringBuilder(System.getProperty("user.home"));
+		for(String s : subFolders) sb.append(File.separator).append(s);
+		return sb.toString();
+	}
+
+	/** @return value of the environment variable if it's an absolute path, or {@code home(subFolders)} */
+	private static String xdg(String env, String... subFolders) {
+		String value = System.getenv(env);
+		if(value != null && !value.isEmpty() && new File(value).isAbsolute()) return value;
+		return subFolders.length == 0 ? null : home(subFolders);
 	}
 
 	private static OS findOS() {
@@ -40,4 +110,13 @@ public enum OS {
 		}
 	}
 
+	/** A computed directory, which may be {@code null}. */
+	private static final class Root {
+		private final String value;
+
+		private Root(String value) {
+			this.value = value;
+		}
+	}
+
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs warm-up tasks of {@link JarPath} and {@link UserDataPath} off the calling thread.<br>
+ * Threads are daemon, so that a pending warm-up never keeps the JVM alive, and die after being idle for a while.
+ * Separate from the probe pool of {@link JarPathResolver}, because a warm-up may wait for parallel probes.
+ */
+final class PrefetchExecutor {
+
+	private static final int THREADS = 2;
+	private static final AtomicInteger threadNum = new AtomicInteger();
+	private static final ThreadPoolExecutor POOL = new ThreadPoolExecutor(THREADS, THREADS,
+			10L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+				Thread t = new Thread(r, "JarPath-prefetch-" + threadNum.getAndIncrement());
+				t.setDaemon(true);
+				return t;
+			});
+	static {
+		POOL.allowCoreThreadTimeOut(true);
+	}
+
+	private PrefetchExecutor() {}
+
+	static <T> CompletableFuture<T> supply(Supplier<T> task) {
+		return CompletableFuture.supplyAsync(task, POOL);
+	}
+}
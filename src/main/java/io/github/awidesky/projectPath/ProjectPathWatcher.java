@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the resolved project directory and .jar file of a class, and invalidates the cache of
+ * {@link JarPath} when they are changed(e.g. the .jar file is replaced, or the install directory is moved).<p>
+ * Changes are handled asynchronously on a daemon thread : the cache is invalidated, the project path
+ * is resolved again, and every registered {@link Listener} is notified.
+ * Until then, calls to {@link JarPath} are not affected at all, so steady-state reads stay as cheap as before.<p>
+ *
+ * Only the .jar file and the project directory itself are relevant.
+ * Other files created in the watched directories(e.g. logs) do not invalidate anything.<p>
+ *
+ * The {@code CodeSource} of a loaded class never changes, so resolving again cannot find a moved install.
+ * Instead, the watcher follows the project directory renamed in its parent directory, and the .jar file
+ * renamed in its directory, and replaces every cached value of {@link JarPath} with the new location at once
+ * (including {@link JarPath#getJarFile(Class)} and {@link JarPath#getArchiveLocation(Class)}).
+ * A .jar file created in the same directory is taken as the renamed one only if it's the only one that contains
+ * the watched class(or the nested archive that contains it).
+ * Moves to other directories, or renames that cannot be told apart, cannot be followed. In that case, the project path is resolved again.<p>
+ *
+ * Call {@link ProjectPathWatcher#close()} to stop watching.
+ */
+public final class ProjectPathWatcher implements Closeable {
+
+	/**
+	 * Receives the result of re-resolution after the watched paths are changed.
+	 */
+	@FunctionalInterface
+	public interface Listener {
+		/**
+		 * Called on the watcher thread after the cache is invalidated and the project path is resolved again.
+		 *
+		 * @param c the watched class
+		 * @param oldDirectory previous project directory
+		 * @param newDirectory newly resolved project directory. May be equal to {@code oldDirectory}
+		 * (e.g. the .jar file was replaced in place).
+		 */
+		void projectPathChanged(Class<?> c, Path oldDirectory, Path newDirectory);
+	}
+
+	/** Events are collected for this long after the first one, so that a single redeploy triggers a single re-resolution. */
+	private static final long DEBOUNCE_MILLIS = 100;
+
+	private final Class<?> c;
+	/** Name of the entry that the .jar file of the watched class contains : the class file, or the outermost nested archive. */
+	private final byte[] knownEntry;
+	private final WatchService watchService;
+	private final Map<WatchKey, Path> keys = new HashMap<>();
+	private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+	private final Thread thread;
+	private volatile Path jarFile;
+	private volatile Path projectDirectory;
+	private volatile boolean closed = false;
+
+	private ProjectPathWatcher(Class<?> c) throws IOException {
+		this.c = c;
+		this.projectDirectory = JarPath.getProjectDirectory(c);
+		this.jarFile = JarPath.getJarFile(c);
+		ArchiveLocation archive = JarPath.getArchiveLocation(c);
+		String entry = archive != null && archive.isNested() ? archive.getEntries().get(0) : c.getName().replace('.', '/') + ".class";
+		this.knownEntry = entry.getBytes(StandardCharsets.UTF_8);
+		this.watchService = projectDirectory.getFileSystem().newWatchService();
+		register();
+		this.thread = new Thread(this::run, "JarPath-watcher-" + c.getSimpleName());
+		this.thread.setDaemon(true);
+	}
+
+	/**
+	 * Resolves the project path of given class, and starts watching it.
+	 *
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return a started watcher
+	 * @throws IOException if the directories cannot be watched
+	 */
+	public static ProjectPathWatcher start(Class<?> c) throws IOException {
+		ProjectPathWatcher ret = new ProjectPathWatcher(c);
+		ret.thread.start();
+		return ret;
+	}
+
+	/**
+	 * Registers a listener.
+	 * @param listener the listener to be notified after re-resolution
+	 */
+	public void addListener(Listener listener) {
+		listeners.add(Objects.requireNonNull(listener));
+	}
+
+	/**
+	 * Removes a listener.
+	 * @param listener the listener to remove
+	 */
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Returns the last resolved project directory.
+	 * @return the last resolved project directory
+	 */
+	public Path getProjectDirectory() {
+		return projectDirectory;
+	}
+
+	/**
+	 * Returns the watched .jar file, which follows renames.
+	 * @return the watched .jar file, or {@code null} if the class is not in a .jar file
+	 */
+	public Path getJarFile() {
+		return jarFile;
+	}
+
+	/**
+	 * Stops watching. Listeners are not notified afterwards.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		watchService.close();
+	}
+
+	/**
+	 * Watches the project directory, its parent(to see the directory moved or deleted),
+	 * and the directory of the .jar file.
+	 */
+	private void register() {
+		Set<Path> dirs = new LinkedHashSet<>();
+		Path project = projectDirectory.toAbsolutePath();
+		dirs.add(project);
+		if(project.getParent() != null) dirs.add(project.getParent());
+		if(jarFile != null && jarFile.getParent() != null) dirs.add(jarFile.getParent());
+
+		keys.keySet().forEach(WatchKey::cancel);
+		keys.clear();
+		for(Path dir : dirs) {
+			try {
+				keys.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+			} catch (IOException | UnsupportedOperationException e) {
+				if(JarPath.isDebug()) e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * @return the class directory of the watched class, after the project directory is moved from {@code oldDir} to {@code newDir}
+	 */
+	private Path classDirectory(Path oldDir, Path newDir) {
+		ArchiveLocation archive = JarPath.getArchiveLocation(c);
+		if(archive == null || !archive.getFile().startsWith(oldDir)) return newDir;
+		return newDir.resolve(oldDir.relativize(archive.getFile()));
+	}
+
+	private static boolean isDirectory(Path p) {
+		BasicFileAttributes attr = JarPath.readAttributes(p);
+		return attr != null && attr.isDirectory();
+	}
+
+	/** @return {@code true} if {@code p} is a .jar file that contains {@link ProjectPathWatcher#knownEntry} */
+	private boolean containsKnownEntry(Path p) {
+		BasicFileAttributes attr = JarPath.readAttributes(p);
+		if(attr == null || !attr.isRegularFile() || !p.getFileName().toString().endsWith(".jar")) return false;
+		try {
+			return !ClassPathIndex.readCentralDirectory(p, (name, len) -> Arrays.equals(name, 0, len, knownEntry, 0, knownEntry.length)).isEmpty();
+		} catch (IOException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+			return false;
+		}
+	}
+
+	private boolean isRelevant(Path changed) {
+		return changed.equals(jarFile) || changed.equals(projectDirectory.toAbsolutePath());
+	}
+
+	private void run() {
+		try {
+			while(!closed) {
+				WatchKey key = watchService.take();
+				boolean relevant = false;
+				Set<Path> created = new LinkedHashSet<>();
+				do {
+					Path dir = keys.get(key);
+					for(WatchEvent<?> event : key.pollEvents()) {
+						if(event.kind() == OVERFLOW || dir == null) {
+							relevant = true;
+							continue;
+						}
+						Path changed = dir.resolve((Path) event.context());
+						if(event.kind() == ENTRY_CREATE) created.add(changed);
+						if(isRelevant(changed)) relevant = true;
+					}
+					if(!key.reset()) {
+						keys.remove(key);
+						relevant = true;
+					}
+				} while((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+				if(relevant && !closed) refresh(created);
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// closed
+		}
+	}
+
+	/**
+	 * @param created paths created in the watched directories since last refresh
+	 */
+	private void refresh(Set<Path> created) {
+		Path old = projectDirectory;
+		Path oldDir = old.toAbsolutePath();
+		Path oldJar = jarFile;
+		Path newDir = null, newJar = oldJar;
+
+		if(JarPath.readAttributes(oldDir) == null) { // renamed in its parent?
+			for(Path p : created) {
+				if(!Objects.equals(p.getParent(), oldDir.getParent()) || !isDirectory(p)) continue;
+				Path jar = oldJar != null && oldJar.startsWith(oldDir) ? p.resolve(oldDir.relativize(oldJar)) : null;
+				if(jar != null && JarPath.readAttributes(jar) == null) continue;
+				newDir = p;
+				if(jar != null) newJar = jar;
+				break;
+			}
+		}
+		if(newJar != null && JarPath.readAttributes(newJar) == null) { // renamed in its directory?
+			Path renamed = null;
+			int matches = 0;
+			for(Path p : created) {
+				if(Objects.equals(p.getParent(), newJar.getParent()) && containsKnownEntry(p)) {
+					renamed = p;
+					matches++;
+				}
+			}
+			if(matches == 1) newJar = renamed;
+			else if(matches > 1 && JarPath.isDebug()) System.out.println("[JarPath|debug] " + matches + " .jar files may be the renamed " + newJar + ", resolving again");
+		}
+
+		jarFile = newJar;
+		if(newDir != null || !Objects.equals(newJar, oldJar)) {
+			/* the CodeSource still points the old location */
+			Path dir = newDir != null ? newDir : oldDir;
+			JarPath.relocate(c, newJar != null ? newJar : classDirectory(oldDir, dir), dir);
+			projectDirectory = dir;
+		} else {
+			JarPath.clearCache(c);
+			projectDirectory = JarPath.getProjectDirectory(c);
+		}
+		register();
+		if(JarPath.isDebug()) System.out.println("[JarPath|debug] Project path of " + c.getName() + " changed : " + old + " -> " + projectDirectory);
+		for(Listener l : listeners) {
+			try {
+				l.projectPathChanged(c, old, projectDirectory);
+			} catch (RuntimeException e) {
+				if(JarPath.isDebug()) e.printStackTrace();
+			}
+		}
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event of a whole project path resolution(a cache miss of {@link JarPath}).
+ */
+@Name("io.github.awidesky.projectPath.Resolution")
+@Label("Project Path Resolution")
+@Category({"ProjectPath", "JarPath"})
+@Description("Resolution of a project path by evaluating the candidates")
+public final class ResolutionEvent extends Event {
+
+	@Label("Class")
+	String className;
+
+	@Label("Probe File")
+	@Description("The file that has to exist in the directory, or null")
+	String file;
+
+	@Label("Result")
+	String result;
+
+	@Label("Matched")
+	@Description("false if no candidate matched and the fallback was returned")
+	boolean matched;
+}
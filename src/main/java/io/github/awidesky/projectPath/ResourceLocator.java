@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds resources(configs, templates, ...) in the project directory resolved by {@link JarPath},
+ * and in the .jar file that contains the class.<p>
+ * Lookups are answered from an in-memory index :
+ * <ul>
+ * <li>Each directory under the project directory is listed once, when it's first looked up.</li>
+ * <li>Entry names of the .jar file are read once from its central directory, when first needed.</li>
+ * </ul>
+ * The project directory is searched before the .jar file, so that files next to the .jar file override bundled ones.
+ * Jar entries are opened through a single zip {@code FileSystem}, created once and kept until {@link ResourceLocator#close()}.<p>
+ *
+ * Names are relative, separated with {@code '/'} (e.g. {@code "config/app.properties"}).
+ * The index is not updated when files are created or deleted afterwards; call {@link ResourceLocator#refresh()} to drop it.
+ */
+public final class ResourceLocator implements Closeable {
+
+	private final Path directory;
+	private final Path jarFile;
+	/** Directory name relative to {@code directory}(e.g. "" or "config/") to its children. Directory children end with '/'. */
+	private final ConcurrentHashMap<String, NavigableSet<String>> listings = new ConcurrentHashMap<>();
+	private volatile NavigableSet<String> jarEntries = null;
+	private FileSystem jarFileSystem = null;
+	private boolean closed = false;
+
+	private ResourceLocator(Path directory, Path jarFile) {
+		this.directory = directory == null ? null : directory.toAbsolutePath().normalize();
+		this.jarFile = jarFile;
+	}
+
+	/**
+	 * Creates a locator rooted at the project directory of given class({@link JarPath#getProjectDirectory(Class)}),
+	 * and the .jar file that contains it({@link JarPath#getJarFile(Class)}).
+	 *
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @return a new locator
+	 */
+	public static ResourceLocator of(Class<?> c) {
+		return new ResourceLocator(JarPath.getProjectDirectory(c), JarPath.getJarFile(c));
+	}
+
+	/**
+	 * Creates a locator over given directory and .jar file.
+	 *
+	 * @param directory the root directory, or {@code null}
+	 * @param jarFile the .jar file, or {@code null}
+	 * @return a new locator
+	 */
+	public static ResourceLocator of(Path directory, Path jarFile) {
+		return new ResourceLocator(directory, jarFile);
+	}
+
+	/** @return the root directory, or {@code null} */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/** @return the .jar file, or {@code null} */
+	public Path getJarFile() {
+		return jarFile;
+	}
+
+	/**
+	 * Checks if the resource exists, in the directory or in the .jar file.
+	 *
+	 * @param name relative name of the resource
+	 * @return {@code true} if exists
+	 */
+	public boolean exists(String name) {
+		return inDirectory(name) || inJar(name);
+	}
+
+	/**
+	 * Finds where the resource is.<br>
+	 * If it's in the .jar file, the returned {@code Path} belongs to the zip {@code FileSystem} of this locator,
+	 * and can be read with {@link Files} until the locator is closed.
+	 *
+	 * @param name relative name of the resource
+	 * @return path of the resource, or {@code null} if not found
+	 * @throws IOException if the .jar file cannot be opened
+	 */
+	public Path find(String name) throws IOException {
+		if(inDirectory(name)) return directory.resolve(name);
+		if(inJar(name)) return jarFileSystem().getPath(name);
+		return null;
+	}
+
+	/**
+	 * Opens the resource.
+	 *
+	 * @param name relative name of the resource
+	 * @return a new {@code InputStream} of the resource
+	 * @throws NoSuchFileException if not found
+	 * @throws IOException if an I/O error occurs
+	 */
+	public InputStream open(String name) throws IOException {
+		Path p = find(name);
+		if(p == null) throw new NoSuchFileException(name);
+		return Files.newInputStream(p);
+	}
+
+	/**
+	 * Lists resources whose name starts with given prefix, in the directory of the prefix.<br>
+	 * For example, {@code list("templates/mail_")} returns {@code templates/mail_en.txt}, {@code templates/mail_ko.txt} ...
+	 * but not the files in subdirectories of {@code templates}. Names of directories end with {@code '/'}.<br>
+	 * Resources in both the directory and the .jar file are listed once.
+	 *
+	 * @param prefix relative name prefix
+	 * @return sorted names of resources
+	 */
+	public List<String> list(String prefix) {
+		int slash = prefix.lastIndexOf('/');
+		String dir = prefix.substring(0, slash + 1);
+		TreeSet<String> ret = new TreeSet<>();
+
+		NavigableSet<String> children = listing(dir);
+		for(String child : children.tailSet(prefix.substring(slash + 1), true)) {
+			if(!child.startsWith(prefix.substring(slash + 1))) break;
+			ret.add(dir + child);
+		}
+		for(String entry : jarEntries().tailSet(prefix, true)) {
+			if(!entry.startsWith(prefix)) break;
+			if(entry.length() == dir.length()) continue;
+			int next = entry.indexOf('/', dir.length());
+			if(next < 0 || next == entry.length() - 1) ret.add(entry);
+		}
+		return new ArrayList<>(ret);
+	}
+
+	/**
+	 * Drops the index, so that the files are listed again.
+	 */
+	public void refresh() {
+		listings.clear();
+		jarEntries = null;
+	}
+
+	/**
+	 * Closes the zip {@code FileSystem} of the .jar file, if opened.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		closed = true;
+		if(jarFileSystem != null) jarFileSystem.close();
+		jarFileSystem = null;
+	}
+
+	private boolean inDirectory(String name) {
+		if(directory == null || name.isEmpty()) return false;
+		String normalized = name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+		int slash = normalized.lastIndexOf('/');
+		NavigableSet<String> children = listing(normalized.substring(0, slash + 1));
+		String child = normalized.substring(slash + 1);
+		return children.contains(child) || children.contains(child + "/");
+	}
+
+	private boolean inJar(String name) {
+		NavigableSet<String> entries = jarEntries();
+		return entries.contains(name) || (!name.endsWith("/") && entries.contains(name + "/"));
+	}
+
+	/**
+	 * Lists the directory once. Names escaping the root directory(e.g. {@code ../}) are never listed.
+	 */
+	private NavigableSet<String> listing(String dir) {
+		if(directory == null) return Collections.emptyNavigableSet();
+		NavigableSet<String> ret = listings.get(dir);
+		if(ret != null) return ret;
+		return listings.computeIfAbsent(dir, k -> {
+			Path p = directory.resolve(k).normalize();
+			if(!p.startsWith(directory)) return Collections.emptyNavigableSet();
+			TreeSet<String> children = new TreeSet<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(p)) {
+				for(Path child : stream) {
+					String name = child.getFileName().toString();
+					BasicFileAttributes attr = JarPath.readAttributes(child);
+					children.add(attr != null && attr.isDirectory() ? name + "/" : name);
+				}
+			} catch (IOException e) {
+				if(JarPath.isDebug() && !(e instanceof NoSuchFileException)) e.printStackTrace();
+			}
+			return Collections.unmodifiableNavigableSet(children);
+		});
+	}
+
+	/**
+	 * Reads entry names of the .jar file once, including the directories implied by them.
+	 */
+	private NavigableSet<String> jarEntries() {
+		NavigableSet<String> ret = jarEntries;
+		if(ret != null) return ret;
+		TreeSet<String> entries = new TreeSet<>();
+		if(jarFile != null) {
+			try {
+				for(String name : ClassPathIndex.readCentralDirectory(jarFile, ClassPathIndex.NameFilter.ALL)) {
+					entries.add(name);
+					for(int i = name.indexOf('/'); i >= 0 && i < name.length() - 1; i = name.indexOf('/', i + 1)) {
+						entries.add(name.substring(0, i + 1));
+					}
+				}
+			} catch (IOException e) {
+				if(JarPath.isDebug()) e.printStackTrace();
+			}
+		}
+		return jarEntries = Collections.unmodifiableNavigableSet(entries);
+	}
+
+	private synchronized FileSystem jarFileSystem() throws IOException {
+		if(closed) throw new IOException("ResourceLocator is closed");
+		if(jarFileSystem == null) jarFileSystem = FileSystems.newFileSystem(jarFile, (ClassLoader) null);
+		return jarFileSystem;
+	}
+
+	@Override
+	public String toString() {
+		return "ResourceLocator [directory=" + directory + ", jarFile=" + jarFile + "]";
+	}
+}
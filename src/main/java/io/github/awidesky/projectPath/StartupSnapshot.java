@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Resolved paths saved to a file, and restored in later runs of the application.<p>
+ * Opt-in: nothing is saved unless {@link StartupSnapshot#load(Class, String...)} is called.
+ * The snapshot is stored in {@code UserDataPath.appLocalFolder(appSubFolders...)}, and records
+ * the project path and .jar file of given class, and the user data roots.<p>
+ *
+ * A snapshot is valid only when the .jar file is at the same path with same size and last modified time,
+ * and the system properties, the {@link CandidateProvider}s and the application local root that affect the resolution are unchanged.
+ * So restoring a snapshot costs reading the snapshot file and a single file access to the .jar file.
+ * When the .jar file is moved or replaced, the snapshot is discarded and rewritten.<p>
+ *
+ * Locating the snapshot file computes the application local root of {@link UserDataPath}, and no other roots.
+ * Environment variables of the other roots are read only when they're used.
+ * Restored roots are not fed back into {@code UserDataPath}, since the application local root is computed already.<p>
+ *
+ * Snapshots are only used when the class is packaged into a .jar file.
+ * Otherwise(e.g. run on IDE), the paths are always resolved.
+ *
+ * <pre>
+ * StartupSnapshot snapshot = StartupSnapshot.load(Main.class, "myapp");
+ * String projectPath = snapshot.getProjectPath(); // JarPath.getProjectPath(Main.class) is cached as well
+ * </pre>
+ */
+public final class StartupSnapshot {
+
+	/** Name of the snapshot file. */
+	public static final String FILE_NAME = "projectpath-snapshot.properties";
+
+	private static final String VERSION = "2";
+	/** System properties that affect resolved values. */
+	private static final String[] PROPERTIES = { "user.dir", "user.home", "os.name", "java.class.path", "jpackage.app-path" };
+
+	private final Path file;
+	private final boolean restored;
+	private final Path projectDirectory;
+	private final Path jarFile;
+	private final Path appLocalRoot;
+	private final Path appdataRoamingRoot;
+
+	private StartupSnapshot(Path file, boolean restored, Path projectDirectory, Path jarFile, Path appLocalRoot, Path appdataRoamingRoot) {
+		this.file = file;
+		this.restored = restored;
+		this.projectDirectory = projectDirectory;
+		this.jarFile = jarFile;
+		this.appLocalRoot = appLocalRoot;
+		this.appdataRoamingRoot = appdataRoamingRoot;
+	}
+
+	/**
+	 * Restores the snapshot of given class if it's valid.
+	 * If not, resolves the paths and saves a new snapshot.<p>
+	 * Restored project path is also stored in the cache of {@link JarPath},
+	 * so that {@link JarPath#getProjectPath(Class)} with the class will not re-evaluate.<p>
+	 * If the application local folder is unknown(e.g. {@code LOCALAPPDATA} is not set), the paths are resolved
+	 * without a snapshot, and {@link StartupSnapshot#getFile()} returns {@code null}.
+	 *
+	 * @param c a class whose .class file resides inside of running .jar
+	 * @param appSubFolders the names of subdirectories under application local folder, where the snapshot is stored
+	 * @return the snapshot
+	 */
+	public static StartupSnapshot load(Class<?> c, String... appSubFolders) {
+		if(UserDataPath.appLocalRoot() == null) {
+			if(JarPath.isDebug()) System.out.println("[JarPath|debug] Application local folder is unknown. Startup snapshot is not used");
+			return resolve(c, null, null, null);
+		}
+		return load(c, UserDataPath.appLocalDirectory(appSubFolders).resolve(FILE_NAME));
+	}
+
+	static StartupSnapshot load(Class<?> c, Path file) {
+		Path jar = JarPath.getJarFile(c);
+		if(jar == null) return resolve(c, file, null, null);
+
+		BasicFileAttributes attr = JarPath.readAttributes(jar);
+		if(attr == null) return resolve(c, file, null, null);
+
+		Properties props = new Properties();
+		try (InputStream in = Files.newInputStream(file)) {
+			props.load(in);
+		} catch (NoSuchFileException e) {
+			return resolve(c, file, jar, attr);
+		} catch (IOException | IllegalArgumentException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+			return resolve(c, file, jar, attr);
+		}
+
+		if(!isValid(props, jar, attr)) {
+			if(JarPath.isDebug()) System.out.println("[JarPath|debug] Startup snapshot is outdated : " + file);
+			return resolve(c, file, jar, attr);
+		}
+
+		try {
+			Path project = Paths.get(props.getProperty("project.path"));
+			JarPath.seed(c, project);
+			return new StartupSnapshot(file, true, project, jar, path(props.getProperty("appLocalRoot")),
+					path(props.getProperty("appdataRoamingRoot")));
+		} catch (RuntimeException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+			return resolve(c, file, jar, attr);
+		}
+	}
+
+	/**
+	 * Deletes the snapshot file, so that next {@link StartupSnapshot#load(Class, String...)} resolves the paths again.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void delete() throws IOException {
+		if(file != null) Files.deleteIfExists(file);
+	}
+
+	/** @return {@code true} if the values are restored from the snapshot file without resolution */
+	public boolean isRestored() {
+		return restored;
+	}
+
+	/** @return the snapshot file, or {@code null} if the application local folder is unknown */
+	public Path getFile() {
+		return file;
+	}
+
+	/** @return same value as {@link JarPath#getProjectPath(Class)} */
+	public String getProjectPath() {
+		return projectDirectory.toString();
+	}
+
+	/** @return same value as {@link JarPath#getProjectDirectory(Class)} */
+	public Path getProjectDirectory() {
+		return projectDirectory;
+	}
+
+	/** @return same value as {@link JarPath#getJarFile(Class)} */
+	public Path getJarFile() {
+		return jarFile;
+	}
+
+	/** @return same value as {@link JarPath#getJarName(Class)} */
+	public String getJarName() {
+		return jarFile == null ? null : jarFile.getFileName().toString();
+	}
+
+	/** @return same value as {@code UserDataPath.appLocalDirectory()}, or {@code null} if unknown */
+	public Path getAppLocalRoot() {
+		return appLocalRoot;
+	}
+
+	/** @return same value as {@code UserDataPath.getWindowsAppdataRoamingDirectory()}, or {@code null} if unknown */
+	public Path getAppdataRoamingRoot() {
+		return appdataRoamingRoot;
+	}
+
+	@Override
+	public String toString() {
+		return "StartupSnapshot [restored=" + restored + ", projectDirectory=" + projectDirectory + ", jarFile=" + jarFile
+				+ ", appLocalRoot=" + appLocalRoot + ", appdataRoamingRoot=" + appdataRoamingRoot + "]";
+	}
+
+	private static boolean isValid(Properties props, Path jar, BasicFileAttributes attr) {
+		if(!VERSION.equals(props.getProperty("version"))) return false;
+		if(!jar.toString().equals(props.getProperty("jar.path"))) return false;
+		if(!String.valueOf(attr.size()).equals(props.getProperty("jar.size"))) return false;
+		if(!String.valueOf(attr.lastModifiedTime().toMillis()).equals(props.getProperty("jar.mtime"))) return false;
+		if(!String.valueOf(JarPath.isClassPathSearchFirst()).equals(props.getProperty("option.classPathSearchFirst"))) return false;
+		for(String key : PROPERTIES) {
+			if(!Objects.equals(System.getProperty(key), props.getProperty("property." + key))) return false;
+		}
+		if(!providers().equals(props.getProperty("providers"))) return false;
+		/* compared with the computed root, instead of reading its environment variables again */
+		if(!Objects.equals(string(UserDataPath.appLocalRoot()), props.getProperty("appLocalRoot"))) return false;
+		return props.getProperty("project.path") != null;
+	}
+
+	private static StartupSnapshot resolve(Class<?> c, Path file, Path jar, BasicFileAttributes attr) {
+		Path project = JarPath.getProjectDirectory(c);
+		StartupSnapshot ret = new StartupSnapshot(file, false, project, JarPath.getJarFile(c),
+				UserDataPath.appLocalRoot(), UserDataPath.appdataRoamingRoot());
+		if(jar != null) save(ret, jar, attr);
+		return ret;
+	}
+
+	/**
+	 * Writes the snapshot to a temporary file and moves it, so that other processes never read a half-written snapshot.
+	 */
+	private static void save(StartupSnapshot s, Path jar, BasicFileAttributes attr) {
+		Properties props = new Properties();
+		props.setProperty("version", VERSION);
+		props.setProperty("jar.path", jar.toString());
+		props.setProperty("jar.size", String.valueOf(attr.size()));
+		props.setProperty("jar.mtime", String.valueOf(attr.lastModifiedTime().toMillis()));
+		props.setProperty("option.classPathSearchFirst", String.valueOf(JarPath.isClassPathSearchFirst()));
+		for(String key : PROPERTIES) {
+			String value = System.getProperty(key);
+			if(value != null) props.setProperty("property." + key, value);
+		}
+		props.setProperty("providers", providers());
+		props.setProperty("project.path", s.getProjectPath());
+		if(s.appLocalRoot != null) props.setProperty("appLocalRoot", s.appLocalRoot.toString());
+		if(s.appdataRoamingRoot != null) props.setProperty("appdataRoamingRoot", s.appdataRoamingRoot.toString());
+
+		Path tmp = null;
+		try {
+			Files.createDirectories(s.file.getParent());
+			tmp = Files.createTempFile(s.file.getParent(), FILE_NAME, ".tmp");
+			try (OutputStream out = Files.newOutputStream(tmp)) {
+				props.store(out, "ProjectPath startup snapshot. Safe to delete.");
+			}
+			try {
+				Files.move(tmp, s.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, s.file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+			try {
+				if(tmp != null) Files.deleteIfExists(tmp);
+			} catch (IOException e1) {
+				if(JarPath.isDebug()) e1.printStackTrace();
+			}
+		}
+	}
+
+	/** Candidate providers of the default resolver, which change the resolved project path. */
+	private static String providers() {
+		StringBuilder sb = new StringBuilder();
+		for(CandidateProvider p : JarPath.getDefaultResolver().getProviders()) {
+			if(sb.length() > 0) sb.append(',');
+			sb.append(p.getClass().getName()).append(':').append(p.getName()).append(':').append(p.getPriority());
+		}
+		return sb.toString();
+	}
+
+	private static Path path(String s) {
+		return s == null ? null : Paths.get(s);
+	}
+
+	private static String string(Path p) {
+		return p == null ? null : p.toString();
+	}
+}
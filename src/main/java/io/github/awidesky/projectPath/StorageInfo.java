@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2024 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.projectPath;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Describes the storage({@link FileStore}) under a directory, e.g. one from {@link UserDataPath} or {@link JarPath}.<p>
+ * Type, name and read-only status are read once per {@code StorageInfo}. Space values are read when asked,
+ * since they change while the application runs. Whether atomic move is supported is probed once per {@code FileStore},
+ * by actually moving a temporary file, and cached.<p>
+ *
+ * {@link StorageInfo#fastestScratchDirectory(String...)} picks the fastest writable directory for temporary data.
+ *
+ * <pre>
+ * StorageInfo info = StorageInfo.of(UserDataPath.cacheDirectory("myapp"));
+ * if(info.isMemoryMapSafe()) ...
+ * </pre>
+ */
+public final class StorageInfo {
+
+	/** File system types that are backed by memory. */
+	private static final Set<String> MEMORY_TYPES = Set.of("tmpfs", "ramfs");
+	/** File system types where memory mapping may fail or see stale data when the file is changed by another host. */
+	private static final Set<String> NETWORK_TYPES = Set.of("nfs", "nfs4", "cifs", "smb", "smbfs", "smb3", "9p",
+			"afs", "ncpfs", "fuse.sshfs", "fuse.gcsfuse", "fuse.s3fs", "davfs", "glusterfs", "ceph", "lustre");
+	/** Size of the file written by the scratch directory probe. */
+	private static final int PROBE_SIZE = 256 * 1024;
+
+	/** Result of the atomic move probe per file store. */
+	private static final ConcurrentHashMap<FileStore, Boolean> atomicMove = new ConcurrentHashMap<>();
+	/** Result of {@link StorageInfo#fastestScratchDirectory(String...)} per application subfolders. */
+	private static final ConcurrentHashMap<List<Path>, Path> scratch = new ConcurrentHashMap<>();
+
+	private final Path path;
+	private final Path existing;
+	private final FileStore store;
+	private final String type;
+	private final boolean readOnly;
+
+	private StorageInfo(Path path, Path existing, FileStore store) {
+		this.path = path;
+		this.existing = existing;
+		this.store = store;
+		this.type = store.type().toLowerCase(Locale.ROOT);
+		this.readOnly = store.isReadOnly();
+	}
+
+	/**
+	 * Describes the storage of given path. If the path does not exist(e.g. a folder that is not created yet),
+	 * the nearest existing parent is used, which is where the path will be created.
+	 *
+	 * @param path a file or a directory
+	 * @return the description of the storage
+	 * @throws IOException if no parent of the path exists, or an I/O error occurs
+	 */
+	public static StorageInfo of(Path path) throws IOException {
+		Path abs = path.toAbsolutePath().normalize();
+		Path existing = nearestExisting(abs);
+		if(existing == null) throw new IOException("No existing parent of " + path);
+		return new StorageInfo(abs, existing, Files.getFileStore(existing));
+	}
+
+	/** @return the path itself, or its nearest existing parent, or {@code null} if none exists */
+	private static Path nearestExisting(Path abs) {
+		Path ret = abs;
+		while(ret != null && JarPath.readAttributes(ret) == null) ret = ret.getParent();
+		return ret;
+	}
+
+	/** @return the path given to {@link StorageInfo#of(Path)}, as an absolute path */
+	public Path getPath() {
+		return path;
+	}
+
+	/** @return the underlying {@code FileStore} */
+	public FileStore getFileStore() {
+		return store;
+	}
+
+	/** @return name of the file store(e.g. the device or the mount source) */
+	public String getName() {
+		return store.name();
+	}
+
+	/** @return type of the file store in lower case(e.g. {@code ext4}, {@code tmpfs}, {@code overlay}, {@code nfs4}, {@code ntfs}) */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * @return size of the file store in bytes
+	 * @throws IOException if an I/O error occurs
+	 */
+	public long getTotalSpace() throws IOException {
+		return store.getTotalSpace();
+	}
+
+	/**
+	 * @return unallocated bytes in the file store
+	 * @throws IOException if an I/O error occurs
+	 */
+	public long getFreeSpace() throws IOException {
+		return store.getUnallocatedSpace();
+	}
+
+	/**
+	 * @return bytes available to this JVM in the file store(may be less than {@link StorageInfo#getFreeSpace()}, e.g. because of quotas)
+	 * @throws IOException if an I/O error occurs
+	 */
+	public long getUsableSpace() throws IOException {
+		return store.getUsableSpace();
+	}
+
+	/** @return {@code true} if the file store is read-only */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/** @return {@code true} if the file store is backed by memory({@code tmpfs}, {@code ramfs}) */
+	public boolean isMemoryBacked() {
+		return MEMORY_TYPES.contains(type);
+	}
+
+	/** @return {@code true} if the file store is a known network file system */
+	public boolean isNetwork() {
+		return NETWORK_TYPES.contains(type) || type.startsWith("nfs") || type.startsWith("smb");
+	}
+
+	/**
+	 * Returns whether memory mapping files in this storage is safe.
+	 * This is a heuristic based on the type : mapping is considered unsafe on network file systems,
+	 * where the mapping may fail with {@code SIGBUS} or see stale data when another host changes the file.
+	 *
+	 * @return {@code true} if the file store is not a known network file system
+	 */
+	public boolean isMemoryMapSafe() {
+		return !isNetwork();
+	}
+
+	/**
+	 * Returns whether {@link StandardCopyOption#ATOMIC_MOVE} works in this storage.
+	 * The first call per file store creates and moves a temporary file in the nearest existing directory of the path,
+	 * and the result is cached.
+	 *
+	 * @return {@code true} if a file can be atomically moved in the file store,
+	 * {@code false} if it can't, or the storage is not writable
+	 */
+	public boolean isAtomicMoveSupported() {
+		return atomicMove.computeIfAbsent(store, s -> probeAtomicMove(existing));
+	}
+
+	private static boolean probeAtomicMove(Path existing) {
+		Path dir = Files.isDirectory(existing) ? existing : existing.getParent();
+		if(dir == null || !Files.isWritable(dir)) return false;
+		Path from = null, to = null;
+		try {
+			from = Files.createTempFile(dir, ".projectpath-", ".tmp");
+			to = from.resolveSibling(from.getFileName() + ".moved");
+			Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException | UnsupportedOperationException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+			return false;
+		} finally {
+			deleteQuietly(from);
+			deleteQuietly(to);
+		}
+	}
+
+	/**
+	 * Returns the fastest writable directory for temporary data, creating the cache folder of the application if it's the fastest.
+	 * Candidates are :
+	 * <ul>
+	 * <li>{@code UserDataPath.runtimeDirectory()}({@code $XDG_RUNTIME_DIR} in Linux)</li>
+	 * <li>{@code /dev/shm}</li>
+	 * <li>{@code java.io.tmpdir}</li>
+	 * <li>{@code UserDataPath.cacheDirectory(appSubFolders)}</li>
+	 * </ul>
+	 * Each candidate is measured by writing, syncing and reading back a small temporary file.
+	 * The cache folder is measured in its nearest existing parent, so it's created only when it's returned.
+	 * The measurement runs once per set of candidates, and the result is cached for the lifetime of the JVM.
+	 * Candidates are resolved on each call, so roots changed by {@link UserDataPath#overrideRoot(BaseDirectory, Path)} or
+	 * {@link UserDataPath#refresh()} are measured again.<p>
+	 * Note that {@code /dev/shm} and {@code java.io.tmpdir} may be shared with other users.
+	 *
+	 * @param appSubFolders the names of subdirectories under the cache folder of the user
+	 * @return the fastest directory, or {@code java.io.tmpdir} if no candidate is writable
+	 */
+	public static Path fastestScratchDirectory(String... appSubFolders) {
+		Path runtime = UserDataPath.root(BaseDirectory.RUNTIME);
+		Path tmp = Paths.get(System.getProperty("java.io.tmpdir"));
+		Path cache = UserDataPath.root(BaseDirectory.CACHE) == null ? null : UserDataPath.cacheDirectory(appSubFolders);
+		return scratch.computeIfAbsent(Arrays.asList(runtime, tmp, cache), k -> measureScratch(runtime, tmp, cache));
+	}
+
+	private static Path measureScratch(Path runtime, Path tmp, Path cache) {
+		List<Path> candidates = new ArrayList<>(4);
+		if(runtime != null) candidates.add(runtime);
+		else if(JarPath.isDebug()) System.out.println("[JarPath|debug] Runtime folder is unknown");
+		candidates.add(Paths.get("/dev/shm"));
+		candidates.add(tmp);
+		if(cache != null) candidates.add(nearestExisting(cache)); // same storage as the cache folder, which may not exist yet
+
+		int fastest = fastest(candidates);
+		if(fastest < 0) return tmp;
+		if(cache == null || fastest != candidates.size() - 1) return candidates.get(fastest);
+		try {
+			return Files.createDirectories(cache);
+		} catch (IOException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+			return tmp;
+		}
+	}
+
+	/** @return the candidate with the shortest probe time. Unwritable candidates are skipped. */
+	static Path fastestOf(List<Path> candidates) {
+		int i = fastest(candidates);
+		return i >= 0 ? candidates.get(i) : Paths.get(System.getProperty("java.io.tmpdir"));
+	}
+
+	/** @return index of the candidate with the shortest probe time, or {@code -1} if none is writable */
+	private static int fastest(List<Path> candidates) {
+		int ret = -1;
+		long best = Long.MAX_VALUE;
+		for(int i = 0; i < candidates.size(); i++) {
+			Path dir = candidates.get(i);
+			if(dir == null || !Files.isDirectory(dir) || !Files.isWritable(dir)) continue;
+			long time = probeWrite(dir);
+			if(JarPath.isDebug()) System.out.println("[JarPath|debug] Scratch probe of " + dir + " : " + (time == Long.MAX_VALUE ? "failed" : time + "ns"));
+			if(time < best) {
+				best = time;
+				ret = i;
+			}
+		}
+		return ret;
+	}
+
+	/** @return nanoseconds taken to write, sync and read back a file in given directory, or {@code Long.MAX_VALUE} if failed */
+	private static long probeWrite(Path dir) {
+		Path file = null;
+		ByteBuffer buf = ByteBuffer.allocateDirect(PROBE_SIZE);
+		try {
+			file = Files.createTempFile(dir, ".projectpath-", ".probe");
+			long start = System.nanoTime();
+			try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+				while(buf.hasRemaining()) ch.write(buf);
+				ch.force(false);
+				buf.clear();
+				ch.position(0);
+				while(buf.hasRemaining() && ch.read(buf) >= 0);
+			}
+			return System.nanoTime() - start;
+		} catch (IOException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+			return Long.MAX_VALUE;
+		} finally {
+			deleteQuietly(file);
+		}
+	}
+
+	private static void deleteQuietly(Path p) {
+		if(p == null) return;
+		try {
+			Files.deleteIfExists(p);
+		} catch (IOException e) {
+			if(JarPath.isDebug()) e.printStackTrace();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "StorageInfo [path=" + path + ", name=" + store.name() + ", type=" + type + ", readOnly=" + readOnly + "]";
+	}
+}
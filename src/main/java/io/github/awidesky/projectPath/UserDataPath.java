@@ -9,7 +9,16 @@
 
 package io.github.awidesky.projectPath;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Generate user's application local data folder.
@@ -17,14 +26,13 @@ import java.nio.file.Paths;
  * <ul>
  * <li>In MacOS : {@code /Users/(username)/Library/Application Support}</li>
  * <li>In Windows : {@code C:\Users\(username)\AppData\local}</li>
- * <li>In Linux : {@code /home/(username)/.local/share}</li>
+ * <li>In Linux : {@code /home/(username)/.local/share}(or {@code $XDG_DATA_HOME})</li>
  * </ul>
+ * Other user specific base directories(config, cache, state, runtime) are provided by {@link UserDataPath#directory(BaseDirectory, String...)}.
  * 
  */
 public class UserDataPath {
 	
-	private static final String appLocalRoot = OS.CURRUNTOS.appLocalRoot();
-	
 	/***
 	 * Returns application local data folder.
 	 * The parameters will be the subfolders under the the user specific local application data folder.<p>
@@ -37,7 +45,16 @@ public class UserDataPath {
 	 * @param subFolders the names of subdirectories under application local folder
 	 */
 	public static String appLocalFolder(String... subFolders) {
-		return Paths.get(appLocalRoot, subFolders).toAbsolutePath().toString();
+		return node(Roots.current.node(Roots.DATA), subFolders).string;
+	}
+	
+	/***
+	 * Same as {@link UserDataPath#appLocalFolder(String...)}, but returns a {@code Path}.
+	 *  
+	 * @param subFolders the names of subdirectories under application local folder
+	 */
+	public static Path appLocalDirectory(String... subFolders) {
+		return node(Roots.current.node(Roots.DATA), subFolders).path;
 	}
 
 	/**
@@ -48,10 +65,265 @@ public class UserDataPath {
 	 * @param subFolders the names of subdirectories under application local folder
 	 */
 	public static String getWindowsAppdataRoamingFolder(String... subFolders) {
-		String ret = appLocalFolder(subFolders);
-		if(OS.CURRUNTOS == OS.WINDOWS && ret.contains("AppData\\Local")) {
-			ret = ret.replace("AppData\\Local", "AppData\\Roaming");
+		return node(Roots.current.node(Roots.ROAMING), subFolders).string;
+	}
+	
+	/**
+	 * Same as {@link UserDataPath#getWindowsAppdataRoamingFolder(String...)}, but returns a {@code Path}.
+	 * 
+	 * @param subFolders the names of subdirectories under application local folder
+	 */
+	public static Path getWindowsAppdataRoamingDirectory(String... subFolders) {
+		return node(Roots.current.node(Roots.ROAMING), subFolders).path;
+	}
+	
+	/**
+	 * Returns the user specific base directory of given kind.
+	 * The parameters will be the subfolders under the base directory.<p>
+	 * Use {@link BaseDirectory#CACHE} or {@link BaseDirectory#RUNTIME} for data that can be regenerated,
+	 * so that it stays out of backed up, persistent folders.
+	 * 
+	 * @param dir kind of the base directory
+	 * @param subFolders the names of subdirectories under the base directory
+	 * @see BaseDirectory
+	 */
+	public static Path directory(BaseDirectory dir, String... subFolders) {
+		return node(Roots.current.node(dir.ordinal()), subFolders).path;
+	}
+	
+	/**
+	 * Same as {@code directory(BaseDirectory.CONFIG, subFolders)}.
+	 * 
+	 * @param subFolders the names of subdirectories under the base directory
+	 */
+	public static Path configDirectory(String... subFolders) {
+		return directory(BaseDirectory.CONFIG, subFolders);
+	}
+	
+	/**
+	 * Same as {@code directory(BaseDirectory.CACHE, subFolders)}.
+	 * 
+	 * @param subFolders the names of subdirectories under the base directory
+	 */
+	public static Path cacheDirectory(String... subFolders) {
+		return directory(BaseDirectory.CACHE, subFolders);
+	}
+	
+	/**
+	 * Same as {@code directory(BaseDirectory.STATE, subFolders)}.
+	 * 
+	 * @param subFolders the names of subdirectories under the base directory
+	 */
+	public static Path stateDirectory(String... subFolders) {
+		return directory(BaseDirectory.STATE, subFolders);
+	}
+	
+	/**
+	 * Same as {@code directory(BaseDirectory.RUNTIME, subFolders)}.
+	 * 
+	 * @param subFolders the names of subdirectories under the base directory
+	 */
+	public static Path runtimeDirectory(String... subFolders) {
+		return directory(BaseDirectory.RUNTIME, subFolders);
+	}
+	
+	/**
+	 * Computes the user data roots on a daemon thread, so that the first call of
+	 * {@link UserDataPath#appLocalFolder(String...)} on a latency-critical thread does not pay for it.
+	 * If {@code createDirectories}, the application local folder of given subfolders is created as well.<br>
+	 * Synchronous calls made before it completes wait for the in-flight computation.
+	 * 
+	 * @param createDirectories {@code true} to create the folder(and nonexistent parents)
+	 * @param subFolders the names of subdirectories under application local folder
+	 * @return a future of {@link UserDataPath#appLocalDirectory(String...)}.
+	 * Completes exceptionally if the folder is unknown, or cannot be created.
+	 */
+	public static CompletableFuture<Path> prefetch(boolean createDirectories, String... subFolders) {
+		return PrefetchExecutor.supply(() -> {
+			Path ret = appLocalDirectory(subFolders);
+			if(createDirectories) {
+				try {
+					Files.createDirectories(ret);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			return ret;
+		});
+	}
+	
+	/**
+	 * Uses given folders instead of the ones of current user, until {@link UserDataPath#refresh()} is called.<br>
+	 * Useful in tests, or in containers where the environment of the process is not the one of the user.
+	 * 
+	 * @param appLocalRoot the folder that {@link UserDataPath#appLocalDirectory(String...)} resolves subfolders against
+	 * @param appdataRoamingRoot the folder that {@link UserDataPath#getWindowsAppdataRoamingDirectory(String...)} resolves subfolders against.
+	 * If {@code null}, same as {@code appLocalRoot}.
+	 * @see UserDataPath#overrideRoot(BaseDirectory, Path)
+	 */
+	public static synchronized void overrideRoots(Path appLocalRoot, Path appdataRoamingRoot) {
+		Path local = appLocalRoot.toAbsolutePath();
+		Path[] overrides = Roots.current.overrides.clone();
+		overrides[Roots.DATA] = local;
+		Roots.current = new Roots(overrides, appdataRoamingRoot == null ? local : appdataRoamingRoot.toAbsolutePath());
+	}
+	
+	/**
+	 * Uses given folder as the base directory of given kind, until {@link UserDataPath#refresh()} is called.
+	 * Overriding {@link BaseDirectory#DATA} changes {@link UserDataPath#appLocalDirectory(String...)} as well.
+	 * 
+	 * @param dir kind of the base directory
+	 * @param root the folder that {@link UserDataPath#directory(BaseDirectory, String...)} resolves subfolders against
+	 */
+	public static synchronized void overrideRoot(BaseDirectory dir, Path root) {
+		Roots current = Roots.current;
+		Path[] overrides = current.overrides.clone();
+		overrides[dir.ordinal()] = root.toAbsolutePath();
+		Roots.current = new Roots(overrides, current.roamingOverride);
+	}
+	
+	/**
+	 * Discards the overridden or computed folders, and computes them again from current environment variables and system properties.
+	 */
+	public static synchronized void refresh() {
+		OS.refresh();
+		Roots.current = new Roots(new Path[Roots.ROAMING], null);
+	}
+	
+	/** @return local application data folder, or {@code null} if unknown */
+	static Path appLocalRoot() {
+		return root(BaseDirectory.DATA);
+	}
+	
+	/** @return the base directory of given kind, or {@code null} if unknown */
+	static Path root(BaseDirectory dir) {
+		Node n = Roots.current.node(dir.ordinal());
+		return n == null ? null : n.path;
+	}
+	
+	/** @return Windows appdata roaming folder(or same as {@code appLocalRoot()} in other OS), or {@code null} if unknown */
+	static Path appdataRoamingRoot() {
+		Node n = Roots.current.node(Roots.ROAMING);
+		return n == null ? null : n.path;
+	}
+	
+	/**
+	 * Roots of current user, or overridden ones.<p>
+	 * Each root is computed when it's first used, not when {@code UserDataPath} is loaded.
+	 * So looking up a root never reads the environment variables of the other roots.
+	 * Threads that use a root while it's computed wait for it.
+	 */
+	private static class Roots {
+		private static final int DATA = BaseDirectory.DATA.ordinal();
+		/** Index of the Windows appdata roaming root in {@code nodes}, after every {@code BaseDirectory}. */
+		private static final int ROAMING = BaseDirectory.values().length;
+		/** Marks a root that is computed, but unknown. */
+		private static final Node UNKNOWN = new Node(Paths.get(""), null);
+		private static volatile Roots current = new Roots(new Path[ROAMING], null);
+		
+		/** Overridden roots, indexed by {@code BaseDirectory#ordinal()}. An element is {@code null} if not overridden. Never modified after construction. */
+		private final Path[] overrides;
+		/** Overridden roaming root, or {@code null} if not overridden. */
+		private final Path roamingOverride;
+		/** Resolved subfolders of each root, and of the roaming root. An element is {@code null} until computed. */
+		private final AtomicReferenceArray<Node> nodes = new AtomicReferenceArray<>(ROAMING + 1);
+		/** Number of cached subfolders under every root. */
+		private final AtomicInteger cached = new AtomicInteger();
+		
+		private Roots(Path[] overrides, Path roamingOverride) {
+			this.overrides = overrides;
+			this.roamingOverride = roamingOverride;
+		}
+		
+		/**
+		 * @param i {@code BaseDirectory#ordinal()}, or {@code ROAMING}
+		 * @return the root, or {@code null} if unknown(e.g. {@code LOCALAPPDATA} is not set)
+		 */
+		private Node node(int i) {
+			Node ret = nodes.get(i);
+			if(ret == null) {
+				synchronized (this) {
+					ret = nodes.get(i);
+					if(ret == null) {
+						ret = compute(i);
+						nodes.set(i, ret);
+					}
+				}
+			}
+			return ret == UNKNOWN ? null : ret;
 		}
+		
+		private Node compute(int i) {
+			Path root;
+			if(i != ROAMING) root = overrides[i] != null ? overrides[i] : root(BaseDirectory.values()[i]);
+			else root = roamingOverride != null ? roamingOverride : roamingRoot(root(BaseDirectory.DATA));
+			if(root == null) return UNKNOWN;
+			if(i == ROAMING) {
+				Node local = node(DATA);
+				if(local != null && local.path.equals(root)) return local;
+			}
+			return new Node(root, cached);
+		}
+		
+		/** {@code null} if the root is unknown(e.g. {@code LOCALAPPDATA} is not set). */
+		private static Path root(BaseDirectory dir) {
+			String root = OS.CURRUNTOS.root(dir);
+			return root == null ? null : Paths.get(root).toAbsolutePath();
+		}
+		
+		private static Path roamingRoot(Path appLocalRoot) {
+			if(appLocalRoot == null) return null;
+			String root = appLocalRoot.toString();
+			if(OS.CURRUNTOS == OS.WINDOWS && root.contains("AppData\\Local")) {
+				return Paths.get(root.replace("AppData\\Local", "AppData\\Roaming"));
+			}
+			return appLocalRoot;
+		}
+	}
+	
+	private static Node node(Node root, String... subFolders) {
+		Node ret = Objects.requireNonNull(root, "The folder of current user is unknown");
+		for(String s : subFolders) ret = ret.child(s);
 		return ret;
 	}
+	
+	/**
+	 * Joins a subfolder name to a folder, like {@code Paths.get(parent, name)}.
+	 * Unlike {@code parent.resolve(name)}, an absolute name(e.g. {@code "/etc"}) stays under {@code parent}.
+	 */
+	static Path join(Path parent, String name) {
+		return parent.getFileSystem().getPath(parent.toString(), name);
+	}
+	
+	/**
+	 * A resolved folder, with both forms of it and the subfolders resolved before.
+	 * Repeated calls with the same subfolders walk down the tree, instead of creating new {@code Path}s and {@code String}s.
+	 * So a warm call does not allocate(except the varargs array, which callers may reuse).<p>
+	 * Up to {@code MAX_CACHED} subfolders are cached per {@code Roots}, so that subfolders made of
+	 * unbounded values(e.g. user IDs) do not grow the tree forever. Beyond that, subfolders are resolved without caching.
+	 */
+	private static final class Node {
+		private static final int MAX_CACHED = 1024;
+		
+		private final Path path;
+		private final String string;
+		private final AtomicInteger cached;
+		private final ConcurrentHashMap<String, Node> children = new ConcurrentHashMap<>(4);
+		
+		private Node(Path path, AtomicInteger cached) {
+			this.path = path;
+			this.string = path.toString();
+			this.cached = cached;
+		}
+		
+		private Node child(String name) {
+			Node ret = children.get(name);
+			if(ret != null) return ret;
+			if(cached.get() >= MAX_CACHED) return new Node(join(path, name), cached);
+			return children.computeIfAbsent(name, k -> {
+				cached.incrementAndGet();
+				return new Node(join(path, k), cached);
+			});
+		}
+	}
 }
@@ -0,0 +1,62 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Warm calls must not allocate. Each check runs the call many times, so that a single allocation per call
+ * is far above the tolerance(which covers one-time allocations such as class loading).
+ */
+class AllocationTest {
+
+	private static final int CALLS = 100_000;
+	private static final long TOLERANCE = 16 * 1024;
+
+	private static final String[] SUBFOLDERS = { "myapp", "config" };
+	private static final String[] NONE = {};
+
+	private com.sun.management.ThreadMXBean bean;
+
+	@BeforeEach
+	void setup() {
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(bean.isThreadAllocatedMemorySupported());
+		bean.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	private void assertNoAllocation(String name, Runnable call) {
+		for(int i = 0; i < CALLS; i++) call.run(); // warm up
+		long before = bean.getCurrentThreadAllocatedBytes();
+		for(int i = 0; i < CALLS; i++) call.run();
+		long allocated = bean.getCurrentThreadAllocatedBytes() - before;
+		System.out.println("[TEST.AllocationTest] " + name + " : " + allocated + " bytes in " + CALLS + " calls");
+		assertTrue(allocated < TOLERANCE, name + " allocated " + allocated + " bytes in " + CALLS + " calls");
+	}
+
+	@Test
+	void jarPath() {
+		JarPath.getProjectPath(AllocationTest.class);
+		assertNoAllocation("JarPath.getProjectPath()", JarPath::getProjectPath);
+		assertNoAllocation("JarPath.getProjectDirectory()", JarPath::getProjectDirectory);
+		assertNoAllocation("JarPath.getProjectPath(Class)", () -> JarPath.getProjectPath(AllocationTest.class));
+		assertNoAllocation("JarPath.getProjectDirectory(Class)", () -> JarPath.getProjectDirectory(AllocationTest.class));
+		assertNoAllocation("JarPath.getProjectPath(Class, String)", () -> JarPath.getProjectPath(AllocationTest.class, "src"));
+		assertNoAllocation("JarPath.getJarName(Class)", () -> JarPath.getJarName(AllocationTest.class));
+		assertNoAllocation("JarPath.getJarFile(Class)", () -> JarPath.getJarFile(AllocationTest.class));
+	}
+
+	@Test
+	void userDataPath() {
+		assertNoAllocation("UserDataPath.appLocalFolder()", () -> UserDataPath.appLocalFolder(NONE));
+		assertNoAllocation("UserDataPath.appLocalFolder(String...)", () -> UserDataPath.appLocalFolder(SUBFOLDERS));
+		assertNoAllocation("UserDataPath.appLocalDirectory(String...)", () -> UserDataPath.appLocalDirectory(SUBFOLDERS));
+		assertNoAllocation("UserDataPath.getWindowsAppdataRoamingFolder(String...)", () -> UserDataPath.getWindowsAppdataRoamingFolder(SUBFOLDERS));
+		assertNoAllocation("UserDataPath.directory(BaseDirectory, String...)", () -> UserDataPath.directory(BaseDirectory.CACHE, SUBFOLDERS));
+	}
+}
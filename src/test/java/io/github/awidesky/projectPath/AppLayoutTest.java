@@ -0,0 +1,94 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AppLayoutTest {
+
+	@TempDir
+	Path dir;
+
+	@AfterEach
+	void restore() {
+		UserDataPath.refresh();
+	}
+
+	private void overrideRoots() {
+		for(BaseDirectory kind : BaseDirectory.values()) UserDataPath.overrideRoot(kind, dir.resolve(kind.name().toLowerCase()));
+	}
+
+	@Test
+	void provision() throws Exception {
+		overrideRoots();
+		AppLayout.Builder b = AppLayout.builder("myapp");
+		AppLayout.Directory config = b.directory(BaseDirectory.CONFIG);
+		AppLayout.Directory logs = b.directory(BaseDirectory.STATE, "logs");
+		AppLayout.Directory plugins = b.directory(BaseDirectory.DATA, "plugins");
+		AppLayout.Directory pluginConfig = b.directory(plugins, "a", "config");
+		AppLayout.Directory thumbnails = b.directory(BaseDirectory.CACHE, "thumbnails");
+		AppLayout layout = b.build();
+
+		assertEquals(dir.resolve("config").resolve("myapp"), config.getPath());
+		assertEquals(dir.resolve("state").resolve("myapp").resolve("logs"), logs.getPath());
+		assertEquals(plugins.getPath().resolve("a").resolve("config"), pluginConfig.getPath());
+		assertEquals(BaseDirectory.DATA, pluginConfig.getKind());
+		assertEquals(thumbnails.getPath().resolve("x"), thumbnails.resolve("x"));
+		assertFalse(Files.exists(config.getPath()));
+
+		Files.createDirectories(logs.getPath());
+		assertEquals(4, layout.provision());
+		assertTrue(layout.isProvisioned());
+		for(AppLayout.Directory d : layout.getDirectories()) assertTrue(Files.isDirectory(d.getPath()), d.toString());
+		assertEquals(0, layout.provision());
+		assertEquals(0, b.build().provision());
+	}
+
+	@Test
+	void absoluteSubFolder() throws Exception {
+		overrideRoots();
+		String absolute = File.separator + "etc";
+		AppLayout.Builder b = AppLayout.builder("myapp");
+		AppLayout.Directory data = b.directory(BaseDirectory.DATA, absolute);
+		AppLayout.Directory sub = b.directory(data, absolute);
+		assertEquals(dir.resolve("data").resolve("myapp").resolve("etc"), data.getPath());
+		assertEquals(data.getPath().resolve("etc"), sub.getPath());
+		b.build().provision();
+		assertTrue(Files.isDirectory(sub.getPath()));
+	}
+
+	@Test
+	void provisionAsync() throws Exception {
+		overrideRoots();
+		AppLayout.Builder b = AppLayout.builder("async");
+		for(int i = 0; i < 32; i++) b.directory(BaseDirectory.CACHE, "d" + i, "sub");
+		AppLayout layout = b.build();
+		assertEquals(32, (int) layout.provisionAsync().get(10, TimeUnit.SECONDS));
+		assertTrue(layout.isProvisioned());
+	}
+
+	@Test
+	void fileInTheWay() throws Exception {
+		overrideRoots();
+		AppLayout.Builder b = AppLayout.builder("myapp");
+		AppLayout.Directory logs = b.directory(BaseDirectory.STATE, "logs");
+		AppLayout.Directory data = b.directory(BaseDirectory.DATA);
+		Files.createDirectories(logs.getPath().getParent());
+		Files.createFile(logs.getPath());
+		AppLayout layout = b.build();
+		assertThrows(IOException.class, layout::provision);
+		assertFalse(layout.isProvisioned());
+		assertTrue(Files.isDirectory(data.getPath()));
+	}
+}
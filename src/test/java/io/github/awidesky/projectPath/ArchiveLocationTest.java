@@ -0,0 +1,147 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.List;
+import java.util.jar.JarInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ArchiveLocationTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void parse() {
+		Path jar = dir.resolve("app.jar").toAbsolutePath();
+		String file = jar.toUri().toString();
+		String nested = "nested:" + jar.toUri().getRawPath() + "/!";
+
+		ArchiveLocation plain = ArchiveLocation.of(file);
+		assertEquals(jar, plain.getFile());
+		assertEquals(dir.toAbsolutePath(), plain.getDirectory());
+		assertFalse(plain.isNested());
+		assertTrue(plain.isArchive());
+		assertNull(plain.getInnerEntry());
+
+		assertEquals(List.of(), ArchiveLocation.of("jar:" + file + "!/").getEntries());
+		assertEquals(jar, ArchiveLocation.of("jar:" + file + "!/").getFile());
+
+		ArchiveLocation boot2 = ArchiveLocation.of("jar:" + file + "!/BOOT-INF/lib/x.jar!/");
+		assertEquals(jar, boot2.getFile());
+		assertEquals("BOOT-INF/lib/x.jar", boot2.getInnerEntry());
+		assertEquals(dir.toAbsolutePath(), boot2.getDirectory());
+		assertEquals(List.of("BOOT-INF/classes"), ArchiveLocation.of("jar:" + file + "!/BOOT-INF/classes!/").getEntries());
+
+		ArchiveLocation boot3 = ArchiveLocation.of("jar:" + nested + "BOOT-INF/lib/my%20lib.jar!/");
+		assertEquals(jar, boot3.getFile());
+		assertEquals(List.of("BOOT-INF/lib/my lib.jar"), boot3.getEntries());
+		assertEquals(List.of("BOOT-INF/classes"), ArchiveLocation.of(nested + "BOOT-INF/classes/").getEntries());
+
+		ArchiveLocation classes = ArchiveLocation.of(dir.resolve("classes").toUri().toString());
+		assertFalse(classes.isArchive());
+		assertEquals(dir.resolve("classes").toAbsolutePath(), classes.getDirectory());
+
+		assertNull(ArchiveLocation.of(null));
+		assertNull(ArchiveLocation.of("nested:/no/separator.jar"));
+	}
+
+	@Test
+	void launchedJar() {
+		Path jar = dir.resolve("app.jar").toAbsolutePath();
+		String cp = System.getProperty("java.class.path");
+		try {
+			System.setProperty("java.class.path", String.join(File.pathSeparator, dir.resolve("classes").toString(), jar.toString()));
+			ClassPathIndex.defaultIndex = null;
+
+			ArchiveLocation location = ArchiveLocation.of("jar:rsrc:lib/x.jar!/");
+			assertEquals(jar, location.getFile());
+			assertEquals(List.of("lib/x.jar"), location.getEntries());
+			assertEquals(jar, ArchiveLocation.of("rsrc:./").getFile());
+			assertNull(ClassPathIndex.defaultIndex, "class path was indexed");
+		} finally {
+			System.setProperty("java.class.path", cp);
+			ClassPathIndex.defaultIndex = null;
+		}
+	}
+
+	@Test
+	void encodedPath() {
+		Path jar = dir.resolve("my app").resolve("app #1.jar").toAbsolutePath();
+		ArchiveLocation location = ArchiveLocation.of("jar:" + jar.toUri() + "!/BOOT-INF/lib/x.jar!/");
+		assertEquals(jar, location.getFile());
+	}
+
+	@Test
+	void nestedClass() throws Exception {
+		Path jar = TestJars.writeNested(dir.resolve("install").resolve("app.jar"), "BOOT-INF/lib/inner.jar");
+		for(String url : List.of("jar:" + jar.toUri() + "!/BOOT-INF/lib/inner.jar!/",
+				"jar:nested:" + jar.toUri().getRawPath() + "/!BOOT-INF/lib/inner.jar!/")) {
+			Class<?> c = new NestedLoader(jar, "BOOT-INF/lib/inner.jar", url).loadClass(TestJarProbe.class.getName());
+
+			assertEquals(jar, JarPath.getJarFile(c));
+			assertEquals("app.jar", JarPath.getJarName(c));
+			assertEquals(jar.getParent(), JarPath.getProjectDirectory(c));
+			ArchiveLocation location = JarPath.getArchiveLocation(c);
+			assertTrue(location.isNested());
+			assertEquals("BOOT-INF/lib/inner.jar", location.getInnerEntry());
+			try (var files = Files.list(jar.getParent())) {
+				assertEquals(1, files.count()); //nothing extracted
+			}
+		}
+	}
+
+	/**
+	 * Loads {@link TestJarProbe} from a .jar file nested in another one, in memory, like boot jar launchers.
+	 */
+	private static class NestedLoader extends ClassLoader {
+		private final Path jar;
+		private final String entry;
+		private final URL location;
+
+		NestedLoader(Path jar, String entry, String location) throws IOException {
+			super(ClassLoader.getPlatformClassLoader());
+			this.jar = jar;
+			this.entry = entry;
+			this.location = new URL(null, location, new URLStreamHandler() {
+				@Override
+				protected URLConnection openConnection(URL u) throws IOException {
+					throw new IOException("not supported");
+				}
+			});
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			String target = name.replace('.', '/') + ".class";
+			try (ZipFile zip = new ZipFile(jar.toFile());
+					JarInputStream in = new JarInputStream(zip.getInputStream(zip.getEntry(entry)))) {
+				for(ZipEntry e; (e = in.getNextEntry()) != null;) {
+					if(!e.getName().equals(target)) continue;
+					byte[] b = in.readAllBytes();
+					return defineClass(name, b, 0, b.length, new ProtectionDomain(new CodeSource(location, (Certificate[]) null), null));
+				}
+			} catch (IOException e) {
+				throw new ClassNotFoundException(name, e);
+			}
+			throw new ClassNotFoundException(name);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class BatchResolutionTest {
+
+	/* two distinct locations : main classes and test classes */
+	private static final List<Class<?>> CLASSES = List.of(JarPath.class, BatchResolutionTest.class,
+			UserDataPath.class, JarPathTest.class, OS.class, CandidateEvaluationTest.class);
+
+	@AfterEach
+	void restore() {
+		JarPathMetrics.setEnabled(false);
+		JarPathMetrics.reset();
+	}
+
+	private static void check(boolean parallel) {
+		JarPath.clearCache();
+		JarPathMetrics.reset();
+		JarPathMetrics.setEnabled(true);
+
+		Map<Class<?>, String> paths = JarPath.getProjectPaths(CLASSES, parallel);
+		assertEquals(2, JarPathMetrics.snapshot().getResolutions());
+		assertEquals(CLASSES, List.copyOf(paths.keySet()));
+
+		JarPath.clearCache();
+		CLASSES.forEach(c -> assertEquals(JarPath.getProjectPath(c), paths.get(c), c.getName()));
+	}
+
+	@Test
+	void sequential() {
+		check(false);
+	}
+
+	@Test
+	void parallel() {
+		check(true);
+	}
+
+	@Test
+	void jarNames() {
+		Map<Class<?>, String> names = JarPath.getJarNames(CLASSES);
+		CLASSES.forEach(c -> assertEquals(JarPath.getJarName(c), names.get(c)));
+	}
+}
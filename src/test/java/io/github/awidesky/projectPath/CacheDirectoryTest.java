@@ -0,0 +1,139 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CacheDirectoryTest {
+
+	private final AtomicLong clock = new AtomicLong(1000L);
+
+	private CacheDirectory cache(Path dir, long maxBytes) {
+		return CacheDirectory.builder(dir).maxBytes(maxBytes).clock(clock::incrementAndGet).build();
+	}
+
+	private static void write(Path p, int size) throws Exception {
+		Files.write(p, new byte[size]);
+	}
+
+	@Test
+	void lru(@TempDir Path dir) throws Exception {
+		try (CacheDirectory cache = cache(dir, 250)) {
+			assertNull(cache.get("a"));
+			write(cache.resolve("a"), 100);
+			assertEquals(100, cache.commit("a"));
+			write(cache.resolve("b"), 100);
+			cache.commit("b");
+			assertEquals(200, cache.getUsage());
+
+			assertNotNull(cache.get("a"));
+			write(cache.resolve("c"), 100);
+			cache.commit("c");
+			assertTrue(Files.exists(dir.resolve("a")));
+			assertFalse(Files.exists(dir.resolve("b")));
+			assertEquals(200, cache.getUsage());
+		}
+	}
+
+	@Test
+	void age(@TempDir Path dir) throws Exception {
+		try (CacheDirectory cache = CacheDirectory.builder(dir).maxAge(Duration.ofMillis(10))
+				.eviction(CacheDirectory.Eviction.AGE).clock(clock::get).build()) {
+			assertEquals(0, cache.trim());
+			write(cache.resolve("a"), 10);
+			cache.commit("a");
+			clock.addAndGet(5);
+			assertNotNull(cache.get("a"));
+			write(cache.resolve("b"), 10);
+			cache.commit("b");
+			clock.addAndGet(6);
+			assertEquals(10, cache.trim());
+			assertFalse(Files.exists(dir.resolve("a")));
+			assertTrue(Files.exists(dir.resolve("b")));
+		}
+	}
+
+	@Test
+	void directoryEntryAndRebuild(@TempDir Path dir) throws Exception {
+		try (CacheDirectory cache = cache(dir, Long.MAX_VALUE)) {
+			Path d = Files.createDirectories(cache.resolve("d").resolve("x").resolve("y"));
+			write(d.resolve("1"), 30);
+			write(d.getParent().resolve("2"), 20);
+			write(cache.resolve("d").resolve("3"), 10);
+			assertEquals(60, cache.commit("d"));
+			assertEquals(60, CacheDirectory.sizeOf(cache.resolve("d")));
+
+			write(cache.resolve("untracked"), 40);
+			assertEquals(60, cache.getUsage());
+			assertEquals(100, cache.rebuild());
+
+			assertTrue(cache.remove("d"));
+			assertFalse(Files.exists(dir.resolve("d")));
+			assertEquals(40, cache.getUsage());
+		}
+	}
+
+	@Test
+	void persistentIndex(@TempDir Path dir) throws Exception {
+		try (CacheDirectory cache = cache(dir, 1000)) {
+			write(cache.resolve("a"), 100);
+			cache.commit("a");
+		}
+		try (CacheDirectory cache = cache(dir, 1000)) {
+			assertEquals(100, cache.getUsage());
+		}
+		Files.write(dir.resolve(CacheDirectory.INDEX_FILE), new byte[] { 1, 2, 3 });
+		try (CacheDirectory cache = cache(dir, 1000)) {
+			assertEquals(100, cache.trim());
+		}
+	}
+
+	@Test
+	void invalidKey(@TempDir Path dir) {
+		CacheDirectory cache = cache(dir, 1000);
+		assertThrows(IllegalArgumentException.class, () -> cache.resolve(".index"));
+		assertThrows(IllegalArgumentException.class, () -> cache.resolve("a/b"));
+		assertThrows(IllegalArgumentException.class, () -> cache.resolve(""));
+	}
+
+	@Test
+	void concurrentCommits(@TempDir Path dir) throws Exception {
+		CacheDirectory c1 = cache(dir, 10_000);
+		CacheDirectory c2 = cache(dir, 10_000);
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for(int i = 0; i < 64; i++) {
+				CacheDirectory c = i % 2 == 0 ? c1 : c2;
+				String key = "k" + i;
+				futures.add(pool.submit(() -> {
+					write(c.resolve(key), 10);
+					c.commit(key);
+					return null;
+				}));
+			}
+			for(Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(640, c1.trim());
+		assertEquals(640, c2.trim());
+	}
+}
@@ -0,0 +1,95 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.awidesky.projectPath.JarPath.CandidateEntry;
+
+class CandidateEvaluationTest {
+
+	@TempDir
+	Path root;
+
+	private final Map<Path, AtomicInteger> reads = new ConcurrentHashMap<>();
+	private final AtomicInteger evaluations = new AtomicInteger();
+
+	@AfterEach
+	void restore() {
+		JarPath.fileProbe = JarPath.FileProbe.DEFAULT;
+	}
+
+	private void countReads() {
+		JarPath.fileProbe = p -> {
+			reads.computeIfAbsent(p, k -> new AtomicInteger()).incrementAndGet();
+			return JarPath.FileProbe.DEFAULT.readAttributes(p);
+		};
+	}
+
+	private CandidateEntry entry(Path p) {
+		return new CandidateEntry(p.toString(), () -> {
+			evaluations.incrementAndGet();
+			return p.toString();
+		});
+	}
+
+	private int totalReads() {
+		return reads.values().stream().mapToInt(AtomicInteger::get).sum();
+	}
+
+	@Test
+	void missEvaluatesEachCandidateOnce() throws IOException {
+		Path jarDir = Files.createDirectories(root.resolve("lib"));
+		Path jar = Files.createFile(jarDir.resolve("app.jar"));
+		Path workDir = Files.createDirectories(root.resolve("work"));
+
+		countReads();
+		String result = JarPath.generateProjectPath(List.of(entry(workDir), entry(jar)), "missing.txt");
+
+		assertEquals(workDir.toString(), result, "fallback should be the first candidate");
+		assertEquals(2, evaluations.get());
+		reads.forEach((p, n) -> assertEquals(1, n.get(), "read count of " + p));
+		/* workDir, workDir/missing.txt, app.jar, lib, lib/missing.txt */
+		assertEquals(5, totalReads());
+	}
+
+	@Test
+	void hitStopsEvaluation() throws IOException {
+		Path jarDir = Files.createDirectories(root.resolve("lib"));
+		Path jar = Files.createFile(jarDir.resolve("app.jar"));
+		Path other = Files.createDirectories(root.resolve("other"));
+
+		countReads();
+		String result = JarPath.generateProjectPath(List.of(entry(jar), entry(other)), "app.jar");
+
+		assertEquals(jarDir.toString(), result);
+		assertEquals(1, evaluations.get());
+		/* app.jar, lib, lib/app.jar */
+		assertEquals(2, reads.get(jar).get());
+		assertEquals(3, totalReads());
+	}
+
+	@Test
+	void nonExistingPathWalksUpOnce() throws IOException {
+		Path deep = root.resolve("a").resolve("b").resolve("c");
+
+		countReads();
+		String result = JarPath.generateProjectPath(List.of(entry(deep)), null);
+
+		assertEquals(root.toString(), result);
+		assertTrue(reads.values().stream().allMatch(n -> n.get() == 1));
+		/* c, b, a, root */
+		assertEquals(4, totalReads());
+	}
+}
@@ -0,0 +1,165 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.awidesky.projectPath.CandidateProvider.Cost;
+import io.github.awidesky.projectPath.JarPath.CandidateEntry;
+
+class CandidateProviderTest {
+
+	private static final String PROPERTY = "projectPath.test.launcherDir";
+	/** Exists in the working directory of tests(the project root). */
+	private static final String MARKER = "src";
+
+	@TempDir
+	Path dir;
+
+	@AfterEach
+	void restore() {
+		System.clearProperty(PROPERTY);
+	}
+
+	/** Listed in a generated {@code META-INF/services} file. */
+	public static class LauncherProvider implements CandidateProvider {
+		@Override
+		public String getName() {
+			return "launcher";
+		}
+
+		@Override
+		public int getPriority() {
+			return 50;
+		}
+
+		@Override
+		public String getPath(Class<?> c) {
+			return System.getProperty(PROPERTY);
+		}
+	}
+
+	private static CandidateProvider counting(String name, int priority, Cost cost, String path, AtomicInteger count) {
+		return new CandidateProvider() {
+			@Override
+			public String getName() {
+				return name;
+			}
+
+			@Override
+			public int getPriority() {
+				return priority;
+			}
+
+			@Override
+			public Cost getCost() {
+				return cost;
+			}
+
+			@Override
+			public String getPath(Class<?> c) {
+				count.incrementAndGet();
+				return path;
+			}
+		};
+	}
+
+	@Test
+	void priority() throws Exception {
+		Files.createDirectories(dir.resolve(MARKER));
+		System.setProperty(PROPERTY, dir.toString());
+		String workDir = Path.of(System.getProperty("user.dir")).toAbsolutePath().toString();
+
+		JarPathResolver before = JarPathResolver.builder().addProvider(CandidateProvider.ofSystemProperty(PROPERTY, 50)).build();
+		JarPathResolver after = JarPathResolver.builder().addProvider(CandidateProvider.ofSystemProperty(PROPERTY, 300)).build();
+		assertEquals(dir.toString(), before.getProjectPath(CandidateProviderTest.class, MARKER));
+		assertEquals(workDir, after.getProjectPath(CandidateProviderTest.class, MARKER));
+
+		List<String> names = after.getCandidates(CandidateProviderTest.class).stream().map(CandidateEntry::getDescription).collect(Collectors.toList());
+		assertEquals("System property jpackage.app-path", names.get(0));
+		assertEquals("System property " + PROPERTY, names.get(names.size() - 1));
+		List<CandidateEntry> reversed = JarPathResolver.builder().classPathSearchFirst(true).build().getCandidates(CandidateProviderTest.class);
+		assertEquals("System property java.class.path", reversed.get(1).getDescription());
+		assertEquals("System property user.dir", reversed.get(4).getDescription());
+
+		/* a custom entry goes after every built-in candidate */
+		CandidateEntry custom = new CandidateEntry("custom", () -> dir.toString());
+		for(CandidateEntry e : reversed) assertTrue(e.getPriority() < custom.getPriority(), e.getDescription());
+	}
+
+	@Test
+	void cheapFirst() throws Exception {
+		Files.createDirectories(dir.resolve("cheap").resolve(MARKER));
+		AtomicInteger expensive = new AtomicInteger();
+		AtomicInteger cheap = new AtomicInteger();
+		AtomicInteger unneeded = new AtomicInteger();
+
+		/* the cheap one matches, but the expensive one has a lower priority value, so it has to be evaluated */
+		JarPathResolver resolver = JarPathResolver.builder().serviceProviders(false)
+				.addProvider(counting("expensive", 1, Cost.CLASSLOADER, null, expensive))
+				.addProvider(counting("cheap", 2, Cost.MEMORY, dir.resolve("cheap").toString(), cheap))
+				.addProvider(counting("unneeded", 3, Cost.CLASSLOADER, dir.toString(), unneeded)).build();
+		assertEquals(dir.resolve("cheap").toString(), resolver.getProjectPath(CandidateProviderTest.class, MARKER));
+		assertEquals(1, expensive.get());
+		assertEquals(1, cheap.get());
+		assertEquals(0, unneeded.get());
+	}
+
+	@Test
+	void classPathIndexNotBuilt() throws Exception {
+		/* "io" is in the class directory of this class, but not in the working directory */
+		Path classes = Path.of(CandidateProviderTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		ClassPathIndex.defaultIndex = null;
+		JarPathResolver resolver = JarPathResolver.builder().serviceProviders(false).build();
+		/* the ProtectionDomain candidate matches, so the java.class.path candidate of the same band is not evaluated */
+		assertEquals(classes.toString(), resolver.getProjectPath(CandidateProviderTest.class, "io"));
+		assertNull(ClassPathIndex.defaultIndex);
+	}
+
+	@Test
+	void serviceLoader() throws Exception {
+		Path services = Files.createDirectories(dir.resolve("META-INF").resolve("services"));
+		Files.writeString(services.resolve(CandidateProvider.class.getName()), LauncherProvider.class.getName() + "\n");
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { dir.toUri().toURL() }, CandidateProviderTest.class.getClassLoader())) {
+			JarPathResolver resolver = JarPathResolver.builder().loadProviders(loader).build();
+			assertTrue(resolver.getProviders().stream().anyMatch(p -> p instanceof LauncherProvider));
+			assertTrue(resolver.toBuilder().build().getProviders().stream().anyMatch(p -> p instanceof LauncherProvider));
+
+			Path launcherDir = Files.createDirectories(dir.resolve("launcher"));
+			Files.createDirectories(launcherDir.resolve(MARKER));
+			System.setProperty(PROPERTY, launcherDir.toString());
+			assertEquals(launcherDir.toString(), resolver.getProjectPath(CandidateProviderTest.class, MARKER));
+		}
+	}
+
+	@Test
+	void brokenServiceFile() throws Exception {
+		Path services = Files.createDirectories(dir.resolve("META-INF").resolve("services"));
+		Files.writeString(services.resolve(CandidateProvider.class.getName()), "no.such.Provider\n" + LauncherProvider.class.getName() + "\n");
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { dir.toUri().toURL() }, CandidateProviderTest.class.getClassLoader())) {
+			JarPathResolver resolver = JarPathResolver.builder().loadProviders(loader).build();
+			assertTrue(resolver.getProviders().stream().anyMatch(p -> p instanceof LauncherProvider));
+		}
+
+		/* the default resolver loads service providers while JarPath is initialized */
+		URL classes = JarPath.class.getProtectionDomain().getCodeSource().getLocation();
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { classes, dir.toUri().toURL() }, ClassLoader.getPlatformClassLoader())) {
+			Class<?> jarPath = Class.forName(JarPath.class.getName(), true, loader);
+			assertNotNull(jarPath.getMethod("getDefaultResolver").invoke(null));
+			assertNotNull(jarPath.getMethod("getProjectPath", Class.class).invoke(null, jarPath));
+		}
+	}
+}
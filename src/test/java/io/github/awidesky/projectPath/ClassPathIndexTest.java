@@ -0,0 +1,114 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ClassPathIndexTest {
+
+	@TempDir
+	Path dir;
+
+	private Path jar(String name, String... entries) throws IOException {
+		Path jar = dir.resolve(name);
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+			for(String e : entries) {
+				out.putNextEntry(new JarEntry(e));
+				out.write(new byte[] { (byte) 0xCA, (byte) 0xFE });
+				out.closeEntry();
+			}
+		}
+		return jar;
+	}
+
+	@Test
+	void centralDirectory() throws IOException {
+		Path jar = jar("a.jar", "a/A.class", "a/res.txt", "META-INF/versions/11/a/A.class", "module-info.class", "a/b/B.class");
+		assertEquals(List.of("a/A.class", "a/b/B.class"), ClassPathIndex.readCentralDirectory(jar));
+	}
+
+	@Test
+	void firstEntryWins() throws IOException {
+		Path a = jar("a.jar", "p/A.class", "p/Shared.class");
+		Path b = jar("b.jar", "p/Shared.class", "q/B.class");
+		Path classes = Files.createDirectories(dir.resolve("classes").resolve("q"));
+		Files.createFile(classes.resolve("B.class"));
+
+		ClassPathIndex index = ClassPathIndex.of(String.join(File.pathSeparator,
+				a.toString(), dir.resolve("missing.jar").toString(), dir.resolve("classes").toString(), b.toString()));
+		System.out.println("[TEST.ClassPathIndexTest] " + index);
+
+		assertEquals(4, index.getEntries().size());
+		assertEquals(a, index.getEntry("p.A"));
+		assertEquals(a, index.getEntry("p.Shared"));
+		assertEquals(dir.resolve("classes"), index.getEntry("q.B"));
+		assertNull(index.getEntry("r.C"));
+		assertEquals(a, index.getPackageEntry("p"));
+		assertEquals(b, index.getPackageEntry("q"));
+	}
+
+	@Test
+	void manyEntries() throws IOException {
+		StringBuilder cp = new StringBuilder();
+		for(int i = 0; i < 200; i++) {
+			cp.append(jar("lib" + i + ".jar", "lib" + i + "/C.class")).append(File.pathSeparator);
+		}
+		ClassPathIndex index = ClassPathIndex.of(cp.toString());
+		assertEquals(dir.resolve("lib123.jar"), index.getEntry("lib123.C"));
+	}
+
+	@Test
+	void systemClassPath() {
+		assertEquals(ClassPathIndex.getDefault(), ClassPathIndex.getDefault());
+		System.out.println("[TEST.ClassPathIndexTest] " + ClassPathIndex.getDefault() + " : "
+				+ ClassPathIndex.getDefault().getEntry(ClassPathIndexTest.class));
+	}
+
+	@Test
+	void interruptedReadNotKept() throws IOException {
+		Path jar = jar("a.jar", "p/A.class");
+		String cp = System.getProperty("java.class.path");
+		try {
+			System.setProperty("java.class.path", jar.toString());
+			ClassPathIndex.defaultIndex = null;
+
+			Thread.currentThread().interrupt(); // the channel is closed on the first read
+			ClassPathIndex interrupted = ClassPathIndex.getDefault();
+			Thread.interrupted();
+			assertNull(interrupted.getEntry("p.A"));
+			assertNull(ClassPathIndex.defaultIndex);
+
+			ClassPathIndex index = ClassPathIndex.getDefault();
+			assertEquals(jar, index.getEntry("p.A"));
+			assertSame(index, ClassPathIndex.defaultIndex);
+		} finally {
+			System.setProperty("java.class.path", cp);
+			ClassPathIndex.defaultIndex = null;
+		}
+	}
+
+	@Test
+	void malformedJarKept() throws IOException {
+		Path jar = Files.writeString(dir.resolve("broken.jar"), "not a zip file");
+		String cp = System.getProperty("java.class.path");
+		try {
+			System.setProperty("java.class.path", jar.toString());
+			ClassPathIndex.defaultIndex = null;
+			assertSame(ClassPathIndex.getDefault(), ClassPathIndex.defaultIndex);
+		} finally {
+			System.setProperty("java.class.path", cp);
+			ClassPathIndex.defaultIndex = null;
+		}
+	}
+}
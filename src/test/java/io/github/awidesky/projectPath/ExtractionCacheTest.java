@@ -0,0 +1,107 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URLClassLoader;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExtractionCacheTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void extractOnce() throws Exception {
+		Path jar = TestJars.write(dir.resolve("app.jar"), Map.of("native/libfoo.so", "foo", "data/big.bin", "0123456789"));
+		Path cacheDir = dir.resolve("cache");
+
+		Path first;
+		try (URLClassLoader loader = TestJars.loader(jar); ExtractionCache cache = ExtractionCache.of(jar, cacheDir)) {
+			assertEquals(jar, ExtractionCache.of(TestJars.probe(loader)).getJarFile());
+			first = cache.extract("native/libfoo.so");
+			assertEquals("libfoo.so", first.getFileName().toString());
+			assertEquals("foo", Files.readString(first));
+			assertEquals(first, cache.extract("native/libfoo.so"));
+
+			MappedByteBuffer buf = cache.map("data/big.bin");
+			byte[] b = new byte[buf.remaining()];
+			buf.get(b);
+			assertEquals("0123456789", new String(b, StandardCharsets.US_ASCII));
+			assertThrows(NoSuchFileException.class, () -> cache.extract("nothing"));
+			assertThrows(NoSuchFileException.class, () -> cache.extract("native/"));
+		}
+
+		/* size and last modified time of the copy are stamped, so that a later run does not read it */
+		Path stamp = cacheDir.resolve("stamps").resolve(first.getParent().getFileName()).resolve("libfoo.so");
+		assertTrue(Files.isRegularFile(stamp));
+
+		/* a later run reuses the cached copy, and stamps it again if it's not stamped */
+		Files.delete(stamp);
+		FileTime written = FileTime.fromMillis(Files.getLastModifiedTime(first).toMillis() - 10_000);
+		Files.setLastModifiedTime(first, written);
+		try (ExtractionCache cache = ExtractionCache.of(jar, cacheDir)) {
+			assertEquals(first, cache.extract("native/libfoo.so"));
+			assertEquals(written, Files.getLastModifiedTime(first));
+			assertTrue(Files.isRegularFile(stamp));
+		}
+
+		/* modified in place, with the same size */
+		Files.writeString(first, "fox");
+		try (ExtractionCache cache = ExtractionCache.of(jar, cacheDir)) {
+			assertEquals(first, cache.extract("native/libfoo.so"));
+			assertEquals("foo", Files.readString(first));
+		}
+
+		/* content changed */
+		TestJars.write(jar, Map.of("native/libfoo.so", "bar"));
+		try (ExtractionCache cache = ExtractionCache.of(jar, cacheDir)) {
+			Path second = cache.extract("native/libfoo.so");
+			assertNotEquals(first, second);
+			assertEquals("bar", Files.readString(second));
+			assertEquals("foo", Files.readString(first));
+		}
+	}
+
+	@Test
+	void concurrentExtraction() throws Exception {
+		Path jar = TestJars.write(dir.resolve("app.jar"), Map.of("lib/a.so", "a".repeat(100_000)));
+		Path cacheDir = dir.resolve("cache");
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Path>> results = new ArrayList<>();
+			for(int i = 0; i < 16; i++) {
+				/* separate instances, like separate processes */
+				results.add(pool.submit(() -> {
+					try (ExtractionCache cache = ExtractionCache.of(jar, cacheDir)) {
+						return cache.extract("lib/a.so");
+					}
+				}));
+			}
+			Path p = results.get(0).get();
+			for(Future<Path> f : results) assertEquals(p, f.get());
+			assertEquals(100_000, Files.size(p));
+			try (var files = Files.list(p.getParent())) {
+				assertEquals(1, files.count());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JPackageImageTest {
+
+	@TempDir
+	Path dir;
+
+	private static Path file(Path p, String content) throws Exception {
+		Files.createDirectories(p.getParent());
+		Files.writeString(p, content);
+		return p;
+	}
+
+	@Test
+	void windows() throws Exception {
+		Path root = dir.resolve("Hello");
+		Path launcher = file(root.resolve("hello.exe"), "");
+		file(root.resolve("app").resolve("hello.cfg"), String.join("\n",
+				"[Application]",
+				"app.mainjar=$APPDIR" + File.separator + "hello.jar",
+				"app.mainclass=hello.Main",
+				"app.classpath=$APPDIR" + File.separator + "hello.jar",
+				"app.classpath=$APPDIR" + File.separator + "lib.jar" + File.pathSeparator + "$APPDIR" + File.separator + "other.jar",
+				"",
+				"; comment",
+				"[JavaOptions]",
+				"java-options=-Djpackage.app-version=1.0",
+				"java-options=-Dhello.home=$ROOTDIR",
+				"# comment",
+				"[ArgOptions]",
+				"arguments=--verbose"));
+		Files.createDirectories(root.resolve("runtime"));
+
+		JPackageImage image = JPackageImage.of(launcher);
+		Path app = root.resolve("app").toAbsolutePath();
+		assertEquals(root.toAbsolutePath(), image.getRoot());
+		assertEquals(app, image.getAppDirectory());
+		assertEquals(root.resolve("runtime").toAbsolutePath(), image.getRuntimeDirectory());
+		assertEquals(app.resolve("hello.cfg"), image.getConfigFile());
+		assertEquals(app.resolve("hello.jar"), image.getMainJar());
+		assertEquals("hello.Main", image.getMainClass());
+		assertEquals(List.of(app.resolve("hello.jar"), app.resolve("lib.jar"), app.resolve("other.jar")), image.getClassPath());
+		assertEquals(List.of("-Djpackage.app-version=1.0", "-Dhello.home=" + root.toAbsolutePath()), image.getJavaOptions());
+		assertEquals(List.of("--verbose"), image.getArguments());
+		assertEquals("$APPDIR" + File.separator + "hello.jar", image.get("Application", "app.mainjar"));
+		assertEquals(2, image.getAll("Application", "app.classpath").size());
+		assertNull(image.get("Application", "none"));
+		assertEquals(app.resolve("data").resolve("a.txt"), image.resolve("data/a.txt"));
+	}
+
+	@Test
+	void linux() throws Exception {
+		Path root = dir.resolve("hello");
+		Path launcher = file(root.resolve("bin").resolve("hello"), "");
+		file(root.resolve("lib").resolve("app").resolve("hello.cfg"), "[Application]\napp.mainclass=hello/hello.Main\n");
+		Files.createDirectories(root.resolve("lib").resolve("runtime"));
+
+		JPackageImage image = JPackageImage.of(launcher);
+		assertEquals(root.toAbsolutePath(), image.getRoot());
+		assertEquals(root.resolve("lib").resolve("app").toAbsolutePath(), image.getAppDirectory());
+		assertEquals(root.resolve("lib").resolve("runtime").toAbsolutePath(), image.getRuntimeDirectory());
+		assertEquals("hello/hello.Main", image.getMainClass());
+		assertNull(image.getMainJar());
+		assertEquals(List.of(), image.getClassPath());
+	}
+
+	@Test
+	void macos() throws Exception {
+		Path bundle = dir.resolve("Hello.app");
+		Path launcher = file(bundle.resolve("Contents").resolve("MacOS").resolve("Hello"), "");
+		Files.createDirectories(bundle.resolve("Contents").resolve("app"));
+
+		JPackageImage image = JPackageImage.of(launcher);
+		assertEquals(bundle.toAbsolutePath(), image.getRoot());
+		assertEquals(bundle.resolve("Contents").resolve("app").toAbsolutePath(), image.getAppDirectory());
+		assertNull(image.getRuntimeDirectory());
+		assertNull(image.getConfigFile());
+		assertNull(image.getMainClass());
+		assertEquals(List.of(), image.getJavaOptions());
+	}
+
+	@Test
+	void unknownLayout() throws Exception {
+		assertNull(JPackageImage.of(file(dir.resolve("hello"), "")));
+	}
+
+	@Test
+	void parse() throws Exception {
+		Map<String, List<Map.Entry<String, String>>> cfg = JPackageImage.parse(file(dir.resolve("a.cfg"),
+				"ignored=1\n [ A ] \n k = v=w \nk=2\nnot a pair\n[B]\n"));
+		assertEquals(List.of("A", "B"), List.copyOf(cfg.keySet()));
+		assertEquals(List.of(Map.entry("k", "v=w"), Map.entry("k", "2")), cfg.get("A"));
+		assertEquals(List.of(), cfg.get("B"));
+	}
+
+	@Test
+	void current() throws Exception {
+		Path root = dir.resolve("Hello");
+		Path launcher = file(root.resolve("hello.exe"), "");
+		Files.createDirectories(root.resolve("app"));
+		String old = System.getProperty(JPackageImage.APP_PATH_PROPERTY);
+		try {
+			System.clearProperty(JPackageImage.APP_PATH_PROPERTY);
+			assertNull(JPackageImage.current());
+
+			System.setProperty(JPackageImage.APP_PATH_PROPERTY, launcher.toString());
+			JPackageImage image = JPackageImage.current();
+			assertEquals(root.resolve("app").toAbsolutePath(), image.getAppDirectory());
+			assertSame(image, JPackageImage.current());
+			JarPath.clearCache();
+			assertEquals(image.getAppDirectory().toString(), JarPath.getCandidates(JPackageImageTest.class).get(0).generatePath());
+
+			Path other = file(dir.resolve("other").resolve("bin").resolve("other"), "");
+			Files.createDirectories(dir.resolve("other").resolve("lib").resolve("app"));
+			System.setProperty(JPackageImage.APP_PATH_PROPERTY, other.toString());
+			assertEquals(dir.resolve("other").resolve("lib").resolve("app").toAbsolutePath(), JPackageImage.current().getAppDirectory());
+		} finally {
+			if(old == null) System.clearProperty(JPackageImage.APP_PATH_PROPERTY);
+			else System.setProperty(JPackageImage.APP_PATH_PROPERTY, old);
+			JarPath.clearCache();
+		}
+	}
+}
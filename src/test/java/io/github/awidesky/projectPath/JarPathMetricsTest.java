@@ -0,0 +1,100 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class JarPathMetricsTest {
+
+	@TempDir
+	Path dir;
+
+	@AfterEach
+	void restore() {
+		JarPathMetrics.setEnabled(false);
+		JarPathMetrics.reset();
+	}
+
+	@Test
+	void snapshot() {
+		JarPath.clearCache();
+		JarPathMetrics.reset();
+		JarPathMetrics.setEnabled(true);
+
+		JarPath.getProjectPath(JarPathMetricsTest.class, "pom.xml");
+		JarPath.getProjectPath(JarPathMetricsTest.class, "pom.xml");
+		JarPath.getProjectPath(JarPathMetricsTest.class, "no such file");
+
+		JarPathMetrics.Snapshot s = JarPathMetrics.snapshot();
+		System.out.println("[TEST.JarPathMetricsTest] " + s);
+		assertEquals(1, s.getCacheHits());
+		assertEquals(2, s.getCacheMisses());
+		assertEquals(2, s.getResolutions());
+		assertEquals(1, s.getFallbacks());
+		assertTrue(s.getCandidates().containsKey("System property user.dir"));
+		s.getCandidates().values().forEach(c -> assertEquals(c.getCount(), java.util.Arrays.stream(c.getHistogram()).sum()));
+
+		JarPathMetrics.setEnabled(false);
+		JarPath.getProjectPath(JarPathMetricsTest.class, "pom.xml");
+		assertEquals(1, JarPathMetrics.snapshot().getCacheHits());
+	}
+
+	@Test
+	void emptyFileNameCachedApart() {
+		JarPath.clearCache();
+		JarPathMetrics.reset();
+		JarPathMetrics.setEnabled(true);
+
+		JarPath.getProjectPath(JarPathMetricsTest.class);
+		JarPath.getProjectPath(JarPathMetricsTest.class, "");
+		JarPath.getProjectPath(JarPathMetricsTest.class);
+
+		JarPathMetrics.Snapshot s = JarPathMetrics.snapshot();
+		assertEquals(1, s.getCacheHits());
+		assertEquals(2, s.getCacheMisses());
+	}
+
+	@Test
+	void bucket() {
+		assertEquals(0, JarPathMetrics.bucket(500));
+		assertEquals(1, JarPathMetrics.bucket(2_000));
+		assertEquals(2, JarPathMetrics.bucket(3_000));
+		assertEquals(JarPathMetrics.BUCKETS - 1, JarPathMetrics.bucket(Long.MAX_VALUE));
+	}
+
+	@Test
+	void flightRecorderEvents() throws IOException {
+		JarPath.clearCache();
+		Path file = dir.resolve("jarpath.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(ResolutionEvent.class);
+			recording.enable(CandidateEvaluationEvent.class);
+			recording.start();
+			JarPath.getProjectPath(JarPathMetricsTest.class, "no such file");
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		RecordedEvent resolution = events.stream()
+				.filter(e -> e.getEventType().getName().equals("io.github.awidesky.projectPath.Resolution"))
+				.findFirst().orElseThrow();
+		assertEquals(JarPathMetricsTest.class.getName(), resolution.getString("className"));
+		assertFalse(resolution.getBoolean("matched"));
+		assertEquals(JarPath.getCandidates(JarPathMetricsTest.class).size(), events.stream()
+				.filter(e -> e.getEventType().getName().equals("io.github.awidesky.projectPath.CandidateEvaluation"))
+				.count());
+	}
+}
@@ -0,0 +1,106 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JarPathResolverTest {
+
+	/** Exists in the working directory of tests(the project root), so that the candidate order decides the result. */
+	private static final String MARKER = "src";
+
+	@TempDir
+	Path dir;
+
+	@AfterEach
+	void restore() {
+		JarPath.setClassPathSearchFirst(false);
+		JarPath.setParallelProbing(false);
+	}
+
+	@Test
+	void independentConfigurations() throws Exception {
+		Path jar = TestJars.write(dir.resolve("app.jar"));
+		Files.createDirectories(dir.resolve(MARKER));
+		JarPathResolver workDirFirst = JarPathResolver.builder().build();
+		JarPathResolver classPathFirst = JarPathResolver.builder().classPathSearchFirst(true).parallelProbing(true).build();
+		assertFalse(workDirFirst.isClassPathSearchFirst());
+		assertTrue(classPathFirst.toBuilder().build().isParallelProbing());
+
+		try (URLClassLoader loader = TestJars.loader(jar)) {
+			Class<?> c = TestJars.probe(loader);
+			String workDir = Path.of(System.getProperty("user.dir")).toAbsolutePath().toString();
+			assertEquals(workDir, workDirFirst.getProjectPath(c, MARKER));
+			assertEquals(dir.toString(), classPathFirst.getProjectPath(c, MARKER));
+			assertEquals(dir.toString(), workDirFirst.getProjectPath(c));
+			assertEquals(jar, classPathFirst.getJarFile(c));
+
+			/* the default resolver is replaced, not changed */
+			JarPathResolver before = JarPath.getDefaultResolver();
+			JarPath.setClassPathSearchFirst(true);
+			assertNotEquals(before, JarPath.getDefaultResolver());
+			assertFalse(before.isClassPathSearchFirst());
+			assertEquals(dir.toString(), JarPath.getProjectPath(c, MARKER));
+			JarPath.setClassPathSearchFirst(true);
+			assertTrue(JarPath.isClassPathSearchFirst());
+			assertEquals(workDir, workDirFirst.getProjectPath(c, MARKER));
+		}
+	}
+
+	@Test
+	void concurrentMixedConfigurations() throws Exception {
+		Path jar = TestJars.write(dir.resolve("app.jar"));
+		Files.createDirectories(dir.resolve(MARKER));
+		String workDir = Path.of(System.getProperty("user.dir")).toAbsolutePath().toString();
+		List<JarPathResolver> resolvers = new ArrayList<>();
+		for(int i = 0; i < 4; i++) {
+			resolvers.add(JarPathResolver.builder().classPathSearchFirst(i % 2 == 1).parallelProbing(i >= 2).build());
+		}
+
+		int threads = 16;
+		int rounds = 200;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try (URLClassLoader loader = TestJars.loader(jar)) {
+			Class<?> c = TestJars.probe(loader);
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> results = new ArrayList<>();
+			for(int t = 0; t < threads; t++) {
+				int id = t;
+				results.add(pool.submit(() -> {
+					start.await();
+					for(int i = 0; i < rounds; i++) {
+						JarPathResolver r = resolvers.get((id + i) % resolvers.size());
+						if(i % 50 == id % 50) r.clearCache();
+						String expected = r.isClassPathSearchFirst() ? dir.toString() : workDir;
+						assertEquals(expected, r.getProjectPath(c, MARKER), r.toString());
+						assertEquals(dir.toString(), r.getProjectPath(c));
+						assertEquals(dir, r.getProjectDirectory(c));
+						/* the default resolver is swapped concurrently */
+						if(id == 0 && i % 10 == 0) JarPath.setClassPathSearchFirst(i % 20 == 0);
+						assertEquals(dir.toString(), JarPath.getProjectPath(c));
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for(Future<?> f : results) f.get();
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -1,5 +1,15 @@
 package io.github.awidesky.projectPath;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 import org.junit.jupiter.api.Test;
 
 class JarPathTest {
@@ -26,4 +36,30 @@ class JarPathTest {
 		System.out.println();
 	}
 
+	@Test
+	void cache() throws Exception {
+		JarPath.clearCache();
+		String first = JarPath.getProjectPath(JarPathTest.class, "pom.xml");
+		assertSame(first, JarPath.getProjectPath(JarPathTest.class, "pom.xml"));
+		assertSame(first, JarPath.getProjectPath());
+		
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> results = IntStream.range(0, 64)
+					.mapToObj(i -> pool.submit(() -> JarPath.getProjectPath(i % 2 == 0 ? JarPath.class : JarPathTest.class)))
+					.collect(Collectors.toList());
+			for(Future<String> f : results) assertEquals(first, f.get());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void pathAdapters() {
+		assertEquals(JarPath.getProjectPath(JarPathTest.class), JarPath.getProjectDirectory(JarPathTest.class).toString());
+		assertEquals(JarPath.getProjectPath(), JarPath.getProjectDirectory().toString());
+		assertEquals(JarPath.getProjectPath(JarPathTest.class, "pom.xml"), JarPath.getProjectDirectory(JarPathTest.class, "pom.xml").toString());
+		assertEquals(JarPath.getJarName(JarPath.class), JarPath.getJarFile(JarPath.class) == null ? null : JarPath.getJarFile(JarPath.class).getFileName().toString());
+	}
+
 }
@@ -0,0 +1,53 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocationDecoderTest {
+
+	@Test
+	void unix() {
+		assertEquals("/home/user/app.jar", LocationDecoder.decodePath("file:/home/user/app.jar", false));
+		assertEquals("/home/user/app.jar", LocationDecoder.decodePath("file:///home/user/app.jar", false));
+		assertEquals("/home/user/app.jar", LocationDecoder.decodePath("file://localhost/home/user/app.jar", false));
+		assertEquals("/home/user/app.jar", LocationDecoder.decodePath("jar:file:/home/user/app.jar!/BOOT-INF/lib/x.jar!/", false));
+		assertEquals("/home/user/classes/", LocationDecoder.decodePath("FILE:/home/user/classes/", false));
+		assertNull(LocationDecoder.decodePath("file://server/share/app.jar", false));
+		assertNull(LocationDecoder.decodePath("http://example.com/app.jar", false));
+	}
+
+	@Test
+	void windows() {
+		assertEquals("C:/Program Files/app.jar", LocationDecoder.decodePath("file:/C:/Program%20Files/app.jar", true));
+		assertEquals("C:/app.jar", LocationDecoder.decodePath("file:///C:/app.jar", true));
+		assertEquals("C:/app.jar", LocationDecoder.decodePath("file:C:/app.jar", true));
+		assertEquals("\\\\server\\share\\a b\\app.jar", LocationDecoder.decodePath("file://server/share/a%20b/app.jar", true));
+		assertEquals("\\\\server\\share\\app.jar", LocationDecoder.decodePath("file:////server/share/app.jar", true));
+	}
+
+	@Test
+	void percentEncoding() {
+		assertEquals("/a b/c+d/\uD55C\uAE00/e.jar", LocationDecoder.decodePath("file:/a%20b/c+d/%ED%95%9C%EA%B8%80/e.jar", false));
+		assertEquals("/100%/a%zz/b%2", LocationDecoder.decodePath("file:/100%/a%zz/b%2", false));
+		assertEquals("/a!b/c", LocationDecoder.decodePath("file:/a%21b/c", false));
+		assertEquals("BOOT-INF/lib/a b.jar", LocationDecoder.decode("BOOT-INF/lib/a%20b.jar"));
+		assertEquals("plain", LocationDecoder.decode("plain"));
+	}
+
+	@Test
+	void memoized(@TempDir Path dir) throws Exception {
+		Path jar = Files.createFile(dir.resolve("a b+c%d.jar"));
+		String url = jar.toUri().toURL().toExternalForm();
+		Path decoded = LocationDecoder.toPath(url);
+		assertEquals(jar.toAbsolutePath(), decoded);
+		assertSame(decoded, LocationDecoder.toPath(url));
+		assertEquals(jar.toAbsolutePath(), ArchiveLocation.of("jar:" + url + "!/").getFile());
+	}
+}
@@ -0,0 +1,84 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.module.Configuration;
+import java.lang.module.ModuleFinder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.spi.ToolProvider;
+
+import javax.tools.JavaCompiler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ModuleLocatorTest {
+
+	private static final String MODULE = "projectpath.test.module";
+
+	/** Compiles a module with a single class into {@code out/(module name)}. */
+	private static Path compileModule(Path dir) throws Exception {
+		JavaCompiler javac = javax.tools.ToolProvider.getSystemJavaCompiler();
+		assumeTrue(javac != null);
+		Path src = Files.createDirectories(dir.resolve("src"));
+		Files.writeString(src.resolve("module-info.java"), "module " + MODULE + " { exports p; }");
+		Files.writeString(Files.createDirectories(src.resolve("p")).resolve("Probe.java"), "package p; public class Probe {}");
+		Path out = dir.resolve("out").resolve(MODULE);
+		assertEquals(0, javac.run(null, null, null, "-d", out.toString(),
+				src.resolve("module-info.java").toString(), src.resolve("p").resolve("Probe.java").toString()));
+		return out;
+	}
+
+	private static Class<?> load(ModuleFinder finder) throws Exception {
+		ModuleLayer boot = ModuleLayer.boot();
+		Configuration cf = boot.configuration().resolve(finder, ModuleFinder.of(), Set.of(MODULE));
+		ModuleLayer layer = boot.defineModulesWithOneLoader(cf, ClassLoader.getSystemClassLoader());
+		return layer.findLoader(MODULE).loadClass("p.Probe");
+	}
+
+	@Test
+	void runtimeImage() {
+		assertEquals("jrt:/java.base", ModuleLocator.location(String.class));
+		assertEquals("jrt:/java.base", JarPath.getLocation(String.class));
+		ArchiveLocation location = JarPath.getArchiveLocation(String.class);
+		assertTrue(location.isRuntimeImage());
+		assertFalse(location.isArchive());
+		assertEquals(Paths.get(System.getProperty("java.home")).toAbsolutePath(), location.getFile());
+		assertEquals(location.getFile(), location.getDirectory());
+		assertNull(JarPath.getJarName(String.class));
+		assertNull(ModuleLocator.location(ModuleLocatorTest.class));
+	}
+
+	@Test
+	void moduleJar(@TempDir Path dir) throws Exception {
+		Path exploded = compileModule(dir);
+		Path jar = dir.resolve("probe module.jar");
+		ToolProvider jarTool = ToolProvider.findFirst("jar").orElse(null);
+		assumeTrue(jarTool != null);
+		assertEquals(0, jarTool.run(System.out, System.err, "--create", "--file", jar.toString(), "-C", exploded.toString(), "."));
+
+		Class<?> c = load(ModuleFinder.of(jar));
+		assertTrue(c.getModule().isNamed());
+		assertEquals(jar.toUri().toString(), ModuleLocator.location(c));
+		assertEquals(jar.toAbsolutePath(), JarPath.getArchiveLocation(c).getFile());
+		assertEquals("probe module.jar", JarPath.getJarName(c));
+		assertEquals(jar.toAbsolutePath(), JarPath.getJarFile(c));
+	}
+
+	@Test
+	void explodedModule(@TempDir Path dir) throws Exception {
+		Path exploded = compileModule(dir);
+		Class<?> c = load(ModuleFinder.of(exploded.getParent()));
+		ArchiveLocation location = JarPath.getArchiveLocation(c);
+		assertEquals(exploded.toAbsolutePath(), location.getFile());
+		assertFalse(location.isArchive());
+		assertNull(JarPath.getJarName(c));
+	}
+}
@@ -0,0 +1,120 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.awidesky.projectPath.JarPath.CandidateEntry;
+
+class ParallelProbingTest {
+
+	@TempDir
+	Path root;
+
+	@AfterEach
+	void restore() {
+		JarPath.setParallelProbing(false);
+	}
+
+	private List<CandidateEntry> candidates(int count) throws IOException {
+		List<CandidateEntry> ret = new ArrayList<>();
+		for(int i = 0; i < count; i++) {
+			String dir = Files.createDirectories(root.resolve("dir" + i)).toString();
+			ret.add(new CandidateEntry("dir" + i, () -> dir));
+		}
+		return ret;
+	}
+
+	@Test
+	void sameAnswerAsSequential() throws IOException {
+		List<CandidateEntry> list = candidates(5);
+		Files.createFile(root.resolve("dir2").resolve("marker"));
+		Files.createFile(root.resolve("dir4").resolve("marker"));
+
+		String sequential = JarPath.generateProjectPath(list, "marker");
+		JarPath.setParallelProbing(true);
+		assertEquals(sequential, JarPath.generateProjectPath(list, "marker"));
+		assertEquals(root.resolve("dir2").toString(), sequential);
+
+		/* nothing matches : the first candidate is returned in both modes */
+		JarPath.setParallelProbing(false);
+		sequential = JarPath.generateProjectPath(list, "none");
+		JarPath.setParallelProbing(true);
+		assertEquals(sequential, JarPath.generateProjectPath(list, "none"));
+	}
+
+	@Test
+	void probesRunConcurrently() throws IOException {
+		List<CandidateEntry> list = new ArrayList<>();
+		CountDownLatch allStarted = new CountDownLatch(5);
+		AtomicInteger concurrent = new AtomicInteger();
+		for(CandidateEntry e : candidates(5)) {
+			/* each probe waits for every other one to start, which never happens when probed one by one */
+			list.add(new CandidateEntry(e.getDescription(), () -> {
+				allStarted.countDown();
+				try {
+					if(allStarted.await(10, TimeUnit.SECONDS)) concurrent.incrementAndGet();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				return e.generatePath();
+			}));
+		}
+		Files.createFile(root.resolve("dir4").resolve("marker"));
+
+		JarPath.setParallelProbing(true);
+		assertEquals(root.resolve("dir4").toString(), JarPath.generateProjectPath(list, "marker"));
+		assertEquals(5, concurrent.get());
+	}
+
+	@Test
+	void lowerPriorityProbesNotInterrupted() throws Exception {
+		String matching = Files.createDirectories(root.resolve("matching")).toString();
+		Files.createFile(root.resolve("matching").resolve("marker"));
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(1);
+		AtomicBoolean interrupted = new AtomicBoolean(false);
+
+		List<CandidateEntry> list = new ArrayList<>();
+		list.add(new CandidateEntry("matching", () -> {
+			try { // match only after the blocking probe is running, so that it's cancelled while running rather than never started
+				started.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return matching;
+		}));
+		list.add(new CandidateEntry("blocking", () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				interrupted.set(true);
+			}
+			finished.countDown();
+			return null;
+		}));
+
+		JarPath.setParallelProbing(true);
+		assertEquals(matching, JarPath.generateProjectPath(list, "marker"));
+		assertEquals(1, finished.getCount(), "result was returned only after the lower priority probe finished");
+		release.countDown();
+		assertTrue(finished.await(10, TimeUnit.SECONDS));
+		assertFalse(interrupted.get(), "lower priority probe was interrupted");
+	}
+}
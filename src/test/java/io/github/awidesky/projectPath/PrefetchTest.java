@@ -0,0 +1,89 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PrefetchTest {
+
+	@TempDir
+	Path dir;
+
+	private final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+	@AfterEach
+	void restore() {
+		JarPath.fileProbe = JarPath.FileProbe.DEFAULT;
+		JarPathMetrics.setEnabled(false);
+		JarPathMetrics.reset();
+	}
+
+	/** Every filesystem access is slow, and the names of the threads that access are recorded. */
+	private void slowReads() {
+		JarPath.fileProbe = p -> {
+			threads.add(Thread.currentThread().getName());
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return JarPath.FileProbe.DEFAULT.readAttributes(p);
+		};
+	}
+
+	@Test
+	void syncCallJoinsInFlight() throws Exception {
+		Path jar = TestJars.write(dir.resolve("app.jar"));
+		try (URLClassLoader loader = TestJars.loader(jar)) {
+			Class<?> c = TestJars.probe(loader);
+			JarPathMetrics.reset();
+			JarPathMetrics.setEnabled(true);
+			slowReads();
+
+			CompletableFuture<Path> future = JarPath.getProjectDirectoryAsync(c);
+			Thread.sleep(100);
+			assertEquals(dir, JarPath.getProjectDirectory(c));
+			assertEquals(dir, future.get(10, TimeUnit.SECONDS));
+			assertEquals(dir.toString(), JarPath.getProjectPathAsync(c).get(10, TimeUnit.SECONDS));
+
+			assertEquals(1, JarPathMetrics.snapshot().getResolutions());
+			assertTrue(threads.stream().anyMatch(name -> name.startsWith("JarPath-prefetch-")), threads.toString());
+		}
+	}
+
+	@Test
+	void setDebugKeepsInFlight() throws Exception {
+		Path jar = TestJars.write(dir.resolve("app.jar"));
+		try (URLClassLoader loader = TestJars.loader(jar)) {
+			Class<?> c = TestJars.probe(loader);
+			JarPathMetrics.reset();
+			JarPathMetrics.setEnabled(true);
+			slowReads();
+
+			CompletableFuture<Path> future = JarPath.getProjectDirectoryAsync(c);
+			Thread.sleep(100);
+			JarPath.setDebug(true);
+			assertEquals(dir, JarPath.getProjectDirectory(c));
+			assertEquals(dir, future.get(10, TimeUnit.SECONDS));
+			assertEquals(1, JarPathMetrics.snapshot().getResolutions());
+		} finally {
+			JarPath.setDebug(false);
+		}
+	}
+
+	@Test
+	void userDataPath() throws Exception {
+		assertEquals(UserDataPath.appLocalDirectory("1", "2"), UserDataPath.prefetch(false, "1", "2").get(10, TimeUnit.SECONDS));
+		assertEquals(JarPath.getProjectDirectory(JarPath.class), JarPath.prefetch().get(10, TimeUnit.SECONDS));
+	}
+}
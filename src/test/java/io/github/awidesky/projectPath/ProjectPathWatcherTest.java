@@ -0,0 +1,90 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProjectPathWatcherTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void redeploy() throws Exception {
+		Path install = dir.resolve("install");
+		Path jar = TestJars.write(install.resolve("app.jar"));
+		BlockingQueue<Path[]> changes = new ArrayBlockingQueue<>(16);
+
+		try (URLClassLoader loader = TestJars.loader(jar)) {
+			Class<?> c = TestJars.probe(loader);
+			try (ProjectPathWatcher watcher = ProjectPathWatcher.start(c)) {
+				watcher.addListener((cl, o, n) -> changes.add(new Path[] { o, n }));
+				assertEquals(install, watcher.getProjectDirectory());
+
+				/* jar replaced in place */
+				Files.write(dir.resolve("unrelated.log"), new byte[1]);
+				TestJars.write(jar);
+				Path[] change = changes.poll(10, TimeUnit.SECONDS);
+				assertTrue(change != null, "no notification after replacing the jar");
+				assertEquals(install, change[0]);
+				assertEquals(install, change[1]);
+
+				/* install directory moved */
+				changes.clear();
+				Path moved = dir.resolve("moved");
+				Files.move(install, moved);
+				change = changes.poll(10, TimeUnit.SECONDS);
+				assertTrue(change != null, "no notification after moving the install directory");
+				assertEquals(install, change[0]);
+				assertEquals(moved, change[1]);
+				assertEquals(moved, JarPath.getProjectDirectory(c));
+				assertEquals(moved.resolve("app.jar"), watcher.getJarFile());
+				assertEquals(moved.resolve("app.jar"), JarPath.getJarFile(c));
+
+				/* jar replaced with a renamed one, along with an unrelated jar */
+				changes.clear();
+				unrelatedJar(moved.resolve("lib.jar"));
+				Files.move(moved.resolve("app.jar"), moved.resolve("app-2.0.jar"));
+				change = changes.poll(10, TimeUnit.SECONDS);
+				assertTrue(change != null, "no notification after renaming the jar");
+				assertEquals(moved, change[0]);
+				assertEquals(moved, change[1]);
+				assertEquals(moved.resolve("app-2.0.jar"), watcher.getJarFile());
+				assertEquals(moved, JarPath.getProjectDirectory(c));
+				assertEquals(moved.resolve("app-2.0.jar"), JarPath.getJarFile(c));
+				assertEquals("app-2.0.jar", JarPath.getJarName(c));
+				assertEquals(moved.resolve("app-2.0.jar"), JarPath.getArchiveLocation(c).getFile());
+				assertEquals(moved, JarPath.getProjectDirectory(c, "app-2.0.jar"));
+
+				/* cannot tell which one is the renamed jar */
+				changes.clear();
+				Files.copy(moved.resolve("app-2.0.jar"), moved.resolve("a.jar"));
+				Files.move(moved.resolve("app-2.0.jar"), moved.resolve("b.jar"));
+				change = changes.poll(10, TimeUnit.SECONDS);
+				assertTrue(change != null, "no notification after renaming the jar");
+				assertEquals(moved.resolve("app-2.0.jar"), watcher.getJarFile());
+			} finally {
+				JarPath.clearCache();
+			}
+		}
+	}
+
+	private static void unrelatedJar(Path jar) throws IOException {
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+			out.putNextEntry(new JarEntry("lib/Lib.class"));
+			out.closeEntry();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResourceLocatorTest {
+
+	@TempDir
+	Path dir;
+
+	private static String read(ResourceLocator locator, String name) throws IOException {
+		try (InputStream in = locator.open(name)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	void directoryOverridesJar() throws Exception {
+		Path jar = TestJars.write(dir.resolve("app.jar"), Map.of(
+				"config/app.properties", "bundled",
+				"templates/mail_en.txt", "en",
+				"templates/mail_ko.txt", "ko",
+				"templates/web/index.html", "index"));
+		Files.createDirectories(dir.resolve("config"));
+		Files.writeString(dir.resolve("config").resolve("app.properties"), "local");
+		Files.writeString(dir.resolve("config").resolve("extra.properties"), "extra");
+
+		try (URLClassLoader loader = TestJars.loader(jar); ResourceLocator locator = ResourceLocator.of(TestJars.probe(loader))) {
+			assertEquals(dir, locator.getDirectory());
+			assertEquals(jar, locator.getJarFile());
+
+			assertEquals("local", read(locator, "config/app.properties"));
+			assertEquals("ko", read(locator, "templates/mail_ko.txt"));
+			assertEquals(dir.resolve("config/extra.properties"), locator.find("config/extra.properties"));
+			assertEquals("jar", locator.find("templates/mail_en.txt").getFileSystem().provider().getScheme());
+
+			assertTrue(locator.exists("templates/"));
+			assertTrue(locator.exists("templates"));
+			assertTrue(locator.exists("config/extra.properties"));
+			assertFalse(locator.exists("templates/mail_fr.txt"));
+			assertNull(locator.find("nothing"));
+			assertThrows(NoSuchFileException.class, () -> locator.open("nothing"));
+
+			assertEquals(List.of("templates/mail_en.txt", "templates/mail_ko.txt"), locator.list("templates/mail_"));
+			assertEquals(List.of("templates/mail_en.txt", "templates/mail_ko.txt", "templates/web/"), locator.list("templates/"));
+			assertEquals(List.of("config/app.properties", "config/extra.properties"), locator.list("config/"));
+
+			/* index is not updated until refresh() */
+			Files.writeString(dir.resolve("config").resolve("new.properties"), "new");
+			assertFalse(locator.exists("config/new.properties"));
+			locator.refresh();
+			assertTrue(locator.exists("config/new.properties"));
+		}
+	}
+
+	@Test
+	void directoryOnly() throws IOException {
+		Path root = Files.createDirectories(dir.resolve("root"));
+		Files.writeString(root.resolve("a.txt"), "a");
+		Files.writeString(dir.resolve("secret.txt"), "secret");
+		try (ResourceLocator locator = ResourceLocator.of(root, null)) {
+			assertTrue(locator.exists("a.txt"));
+			assertFalse(locator.exists("../secret.txt"));
+			assertNull(locator.find("../secret.txt"));
+			assertEquals("a", read(locator, "a.txt"));
+			assertEquals(List.of("a.txt"), locator.list(""));
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Properties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StartupSnapshotTest {
+
+	@TempDir
+	Path dir;
+
+	@AfterEach
+	void restore() {
+		JarPathMetrics.setEnabled(false);
+		JarPathMetrics.reset();
+	}
+
+	private static StartupSnapshot load(Path jar, Path file) throws Exception {
+		try (URLClassLoader loader = TestJars.loader(jar)) {
+			Class<?> c = TestJars.probe(loader);
+			assertEquals(jar, JarPath.getJarFile(c));
+			return StartupSnapshot.load(c, file);
+		}
+	}
+
+	@Test
+	void restoreAndInvalidate() throws Exception {
+		Path jar = dir.resolve("install").resolve("app.jar");
+		Path file = dir.resolve("data").resolve(StartupSnapshot.FILE_NAME);
+		TestJars.write(jar);
+
+		StartupSnapshot first = load(jar, file);
+		assertFalse(first.isRestored());
+		assertTrue(Files.exists(file));
+		assertEquals("app.jar", first.getJarName());
+
+		JarPath.clearCache();
+		JarPathMetrics.reset();
+		JarPathMetrics.setEnabled(true);
+		StartupSnapshot second = load(jar, file);
+		assertTrue(second.isRestored());
+		assertEquals(first.getProjectDirectory(), second.getProjectDirectory());
+		assertEquals(first.getAppLocalRoot(), second.getAppLocalRoot());
+		assertEquals(0, JarPathMetrics.snapshot().getResolutions());
+
+		/* replaced */
+		Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() - 10_000));
+		assertFalse(load(jar, file).isRestored());
+		assertTrue(load(jar, file).isRestored());
+
+		/* moved */
+		Path moved = Files.createDirectories(dir.resolve("moved")).resolve("app.jar");
+		Files.move(jar, moved);
+		StartupSnapshot third = load(moved, file);
+		assertFalse(third.isRestored());
+		assertEquals(moved, third.getJarFile());
+		assertTrue(load(moved, file).isRestored());
+
+		third.delete();
+		assertFalse(Files.exists(file));
+	}
+
+	@Test
+	void notInJar() {
+		StartupSnapshot s = StartupSnapshot.load(StartupSnapshotTest.class, dir.resolve(StartupSnapshot.FILE_NAME));
+		assertFalse(s.isRestored());
+		assertFalse(Files.exists(s.getFile()));
+		assertEquals(JarPath.getProjectDirectory(StartupSnapshotTest.class), s.getProjectDirectory());
+	}
+
+	@Test
+	void invalidatedByProvidersAndRoot() throws Exception {
+		Path jar = dir.resolve("install").resolve("app.jar");
+		Path file = dir.resolve("data").resolve(StartupSnapshot.FILE_NAME);
+		TestJars.write(jar);
+		assertFalse(load(jar, file).isRestored());
+		assertTrue(load(jar, file).isRestored());
+
+		/* saved with a different set of candidate providers */
+		edit(file, "providers", "com.example.LauncherProvider:launcher:50");
+		assertFalse(load(jar, file).isRestored());
+		assertTrue(load(jar, file).isRestored());
+
+		/* saved with a different application local root */
+		edit(file, "appLocalRoot", dir.resolve("otherRoot").toString());
+		assertFalse(load(jar, file).isRestored());
+		assertTrue(load(jar, file).isRestored());
+	}
+
+	private static void edit(Path file, String key, String value) throws Exception {
+		Properties props = new Properties();
+		try (InputStream in = Files.newInputStream(file)) {
+			props.load(in);
+		}
+		props.setProperty(key, value);
+		try (OutputStream out = Files.newOutputStream(file)) {
+			props.store(out, null);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package io.github.awidesky.projectPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StorageInfoTest {
+
+	@Test
+	void describe(@TempDir Path dir) throws Exception {
+		StorageInfo info = StorageInfo.of(dir);
+		System.out.println("[TEST.StorageInfoTest] " + info);
+		assertEquals(dir.toAbsolutePath().normalize(), info.getPath());
+		assertEquals(Files.getFileStore(dir), info.getFileStore());
+		assertNotNull(info.getType());
+		assertTrue(info.getTotalSpace() > 0);
+		assertTrue(info.getUsableSpace() > 0);
+		assertFalse(info.isReadOnly());
+		assertTrue(info.isAtomicMoveSupported());
+		try (Stream<Path> s = Files.list(dir)) {
+			assertEquals(0, s.count());
+		}
+	}
+
+	@Test
+	void nonexistentPath(@TempDir Path dir) throws Exception {
+		Path child = dir.resolve("a").resolve("b");
+		StorageInfo info = StorageInfo.of(child);
+		assertEquals(child.toAbsolutePath().normalize(), info.getPath());
+		assertEquals(Files.getFileStore(dir), info.getFileStore());
+		assertFalse(Files.exists(child));
+	}
+
+	@Test
+	void scratch(@TempDir Path dir) throws Exception {
+		Path a = Files.createDirectory(dir.resolve("a"));
+		Path b = dir.resolve("missing");
+		assertEquals(a, StorageInfo.fastestOf(Arrays.asList(null, b, a)));
+		try (Stream<Path> s = Files.list(a)) {
+			assertEquals(0, s.count());
+		}
+
+		try {
+			UserDataPath.overrideRoot(BaseDirectory.CACHE, dir.resolve("cache"));
+			Path fastest = StorageInfo.fastestScratchDirectory("projectPathTest");
+			assertTrue(Files.isWritable(fastest));
+			assertSame(fastest, StorageInfo.fastestScratchDirectory("projectPathTest"));
+			/* the cache folder is created only if it's the fastest */
+			Path cache = dir.resolve("cache").resolve("projectPathTest");
+			assertEquals(fastest.equals(cache), Files.isDirectory(cache));
+
+			/* the cache root does not exist either : measured in its nearest existing parent */
+			UserDataPath.overrideRoot(BaseDirectory.CACHE, dir.resolve("missing").resolve("cache"));
+			Path missing = dir.resolve("missing").resolve("cache").resolve("projectPathTest");
+			fastest = StorageInfo.fastestScratchDirectory("projectPathTest");
+			assertTrue(Files.isWritable(fastest));
+			assertNotEquals(cache, fastest);
+			assertEquals(fastest.equals(missing), Files.exists(dir.resolve("missing")));
+		} finally {
+			UserDataPath.refresh();
+		}
+	}
+}
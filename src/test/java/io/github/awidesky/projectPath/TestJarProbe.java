@@ -0,0 +1,5 @@
+package io.github.awidesky.projectPath;
+
+/** A class with no dependencies, packaged into .jar files generated by {@link TestJars}. */
+class TestJarProbe {
+}
@@ -0,0 +1,81 @@
+package io.github.awidesky.projectPath;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Generates .jar files for tests.
+ */
+class TestJars {
+
+	/** Name of {@link TestJarProbe} class file entry. */
+	static final String PROBE_ENTRY = TestJarProbe.class.getName().replace('.', '/') + ".class";
+
+	/**
+	 * Writes a .jar file that contains {@link TestJarProbe}, and given text entries.
+	 */
+	static Path write(Path jar, Map<String, String> entries) throws IOException {
+		Files.createDirectories(jar.toAbsolutePath().getParent());
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+			out.putNextEntry(new JarEntry(PROBE_ENTRY));
+			out.write(probeBytes());
+			out.closeEntry();
+			for(Map.Entry<String, String> e : entries.entrySet()) {
+				out.putNextEntry(new JarEntry(e.getKey()));
+				out.write(e.getValue().getBytes(StandardCharsets.UTF_8));
+				out.closeEntry();
+			}
+		}
+		return jar;
+	}
+
+	static Path write(Path jar) throws IOException {
+		return write(jar, Map.of());
+	}
+
+	/**
+	 * Writes a fat jar, whose {@code entry} is a .jar file that contains {@link TestJarProbe}.
+	 */
+	static Path writeNested(Path jar, String entry) throws IOException {
+		ByteArrayOutputStream inner = new ByteArrayOutputStream();
+		try (JarOutputStream out = new JarOutputStream(inner)) {
+			out.putNextEntry(new JarEntry(PROBE_ENTRY));
+			out.write(probeBytes());
+			out.closeEntry();
+		}
+		Files.createDirectories(jar.toAbsolutePath().getParent());
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+			out.putNextEntry(new JarEntry(entry));
+			out.write(inner.toByteArray());
+			out.closeEntry();
+		}
+		return jar;
+	}
+
+	static byte[] probeBytes() throws IOException {
+		try (InputStream in = TestJars.class.getClassLoader().getResourceAsStream(PROBE_ENTRY)) {
+			return in.readAllBytes();
+		}
+	}
+
+	/**
+	 * Returns a class loader that loads {@link TestJarProbe} from given location.
+	 * Its parent is the platform class loader, so the class is never loaded from the test classes.
+	 */
+	static URLClassLoader loader(Path location) throws IOException {
+		return new URLClassLoader(new URL[] { location.toUri().toURL() }, ClassLoader.getPlatformClassLoader());
+	}
+
+	static Class<?> probe(URLClassLoader loader) throws ClassNotFoundException {
+		return loader.loadClass(TestJarProbe.class.getName());
+	}
+}
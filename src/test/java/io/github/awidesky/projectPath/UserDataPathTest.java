@@ -1,6 +1,18 @@
 package io.github.awidesky.projectPath;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class UserDataPathTest {
 
@@ -16,4 +28,96 @@ class UserDataPathTest {
 		System.out.println();
 	}
 
+	@Test
+	void pathAdapters() {
+		assertEquals(Paths.get(UserDataPath.appLocalFolder()), UserDataPath.appLocalDirectory());
+		assertEquals(UserDataPath.appLocalFolder("1", "2", "3"), UserDataPath.appLocalDirectory("1", "2", "3").toString());
+		assertEquals(UserDataPath.getWindowsAppdataRoamingFolder("1", "2"), UserDataPath.getWindowsAppdataRoamingDirectory("1", "2").toString());
+		assertEquals(Paths.get(OS.CURRUNTOS.appLocalRoot(), "1", "2").toAbsolutePath(), UserDataPath.appLocalDirectory("1", "2"));
+	}
+
+	@Test
+	void overrideAndRefresh(@TempDir Path dir) throws Exception {
+		Path original = UserDataPath.appLocalDirectory();
+		try {
+			UserDataPath.overrideRoots(dir, null);
+			assertEquals(dir.resolve("a"), UserDataPath.appLocalDirectory("a"));
+			assertEquals(dir.resolve("a"), UserDataPath.getWindowsAppdataRoamingDirectory("a"));
+			assertEquals(dir.resolve("x").resolve("y"), UserDataPath.prefetch(true, "x", "y").get(10, TimeUnit.SECONDS));
+			assertTrue(Files.isDirectory(dir.resolve("x").resolve("y")));
+		} finally {
+			UserDataPath.refresh();
+		}
+		assertEquals(original, UserDataPath.appLocalDirectory());
+	}
+
+	@Test
+	void absoluteSubFolder() {
+		String absolute = File.separator + "etc";
+		assertEquals(UserDataPath.appLocalDirectory().resolve("etc"), UserDataPath.appLocalDirectory(absolute));
+		assertEquals(UserDataPath.appLocalDirectory("a").resolve("etc").toString(), UserDataPath.appLocalFolder("a", absolute));
+		assertEquals(Paths.get(UserDataPath.getWindowsAppdataRoamingFolder(), "a", absolute), UserDataPath.getWindowsAppdataRoamingDirectory("a", absolute));
+	}
+
+	@Test
+	void lazyRoot() {
+		assumeTrue(System.getenv("XDG_DATA_HOME") == null);
+		String home = System.getProperty("user.home");
+		try {
+			assertEquals(home + File.separator + ".local" + File.separator + "share", OS.LINUX.appLocalRoot());
+			System.setProperty("user.home", "other");
+			assertEquals(home + File.separator + ".local" + File.separator + "share", OS.LINUX.appLocalRoot());
+			OS.refresh();
+			assertEquals("other" + File.separator + ".local" + File.separator + "share", OS.LINUX.appLocalRoot());
+		} finally {
+			System.setProperty("user.home", home);
+			OS.refresh();
+		}
+	}
+
+	@Test
+	void lazyBaseDirectories() {
+		assumeTrue(OS.CURRUNTOS == OS.LINUX && System.getenv("XDG_CONFIG_HOME") == null);
+		String home = System.getProperty("user.home");
+		try {
+			UserDataPath.refresh();
+			UserDataPath.appLocalDirectory();
+			/* the config root is not computed with the data root */
+			System.setProperty("user.home", "other");
+			assertEquals(Paths.get("other", ".config").toAbsolutePath(), UserDataPath.configDirectory());
+		} finally {
+			System.setProperty("user.home", home);
+			UserDataPath.refresh();
+		}
+	}
+
+	@Test
+	void linuxBaseDirectories() {
+		String home = System.getProperty("user.home") + File.separator;
+		if(System.getenv("XDG_CONFIG_HOME") == null) assertEquals(home + ".config", OS.LINUX.root(BaseDirectory.CONFIG));
+		if(System.getenv("XDG_CACHE_HOME") == null) assertEquals(home + ".cache", OS.LINUX.root(BaseDirectory.CACHE));
+		if(System.getenv("XDG_STATE_HOME") == null) assertEquals(home + ".local" + File.separator + "state", OS.LINUX.root(BaseDirectory.STATE));
+		if(System.getenv("XDG_RUNTIME_DIR") == null) assertEquals(System.getProperty("java.io.tmpdir"), OS.LINUX.root(BaseDirectory.RUNTIME));
+		assertEquals(OS.LINUX.appLocalRoot(), OS.LINUX.root(BaseDirectory.DATA));
+		assertEquals(home + "Library" + File.separator + "Caches", OS.MACOS.root(BaseDirectory.CACHE));
+	}
+
+	@Test
+	void baseDirectories(@TempDir Path dir) {
+		assertEquals(UserDataPath.appLocalDirectory("a"), UserDataPath.directory(BaseDirectory.DATA, "a"));
+		assertNotNull(UserDataPath.runtimeDirectory());
+		try {
+			UserDataPath.overrideRoot(BaseDirectory.CACHE, dir.resolve("cache"));
+			UserDataPath.overrideRoot(BaseDirectory.DATA, dir.resolve("data"));
+			assertEquals(dir.resolve("cache").resolve("a"), UserDataPath.cacheDirectory("a"));
+			assertEquals(dir.resolve("data").resolve("a"), UserDataPath.appLocalDirectory("a"));
+			UserDataPath.overrideRoots(dir.resolve("local"), null);
+			assertEquals(dir.resolve("local"), UserDataPath.directory(BaseDirectory.DATA));
+			assertEquals(dir.resolve("cache"), UserDataPath.cacheDirectory());
+		} finally {
+			UserDataPath.refresh();
+		}
+		assertEquals(Paths.get(OS.CURRUNTOS.root(BaseDirectory.CACHE)).toAbsolutePath(), UserDataPath.cacheDirectory());
+	}
+
 }